@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# 为一个服务生成 AppCDS 归档，由 fast-startup 配置在 package 阶段调用
+# 用法：cds-train.sh <可执行 jar> [是否懒加载，默认 true]
+# 产物在 jar 同级的 cds 目录：解压后的应用、application.jsa 归档和启动脚本 run.sh
+set -euo pipefail
+
+jar=$1
+lazy=${2:-true}
+out=$(dirname "$jar")/cds
+
+rm -rf "$out"
+mkdir -p "$out"
+cd "$out"
+unzip -q "$jar"
+
+main=$(grep '^Start-Class:' META-INF/MANIFEST.MF | cut -d' ' -f2 | tr -d '\r')
+# CDS 的 classpath 里不能有非空目录，应用自己的类重新打成 jar
+jar cf application.jar -C BOOT-INF/classes .
+# CDS 要求训练和运行时的 classpath 完全一致，按 classpath.idx 的顺序拼出固定的 classpath
+classpath="application.jar"
+while read -r line; do
+  classpath="$classpath:${line#- }"
+done < <(sed 's/"//g' BOOT-INF/classpath.idx)
+echo "$classpath" > classpath.txt
+
+# 懒加载只作用于非关键 bean：share-common 的 LazyInitializationConfig 让控制器及其依赖、数据源、
+# 定时任务、订阅和监听器照常在启动时创建
+opts="-Dspring.aot.enabled=true -Dspring.cloud.refresh.enabled=false -Dspring.main.lazy-initialization=$lazy"
+echo "$opts" > java-opts.txt
+
+cat > run.sh <<RUN
+#!/usr/bin/env bash
+# 快速启动：AOT 生成的 bean 定义 + AppCDS 归档 + 非关键 bean 懒加载，参数原样传给应用
+cd "\$(dirname "\$0")"
+exec java -XX:SharedArchiveFile=application.jsa -Xshare:auto $opts \${JAVA_OPTS:-} -cp "\$(cat classpath.txt)" $main "\$@"
+RUN
+chmod +x run.sh
+
+# 训练运行：上下文刷新完成后立即退出，不启动 web 服务器，也不注册到 Nacos
+java -XX:ArchiveClassesAtExit=application.jsa $opts -Dspring.context.exit=onRefresh \
+  -cp "$classpath" "$main" > training.log 2>&1 || {
+  echo "CDS 训练运行失败，详见 $out/training.log" >&2
+  exit 1
+}
+echo "CDS 归档已生成：$out/application.jsa"
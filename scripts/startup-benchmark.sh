@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# 启动基准：测每个服务从启动进程到第一个请求返回（time-to-first-request）的时间
+# 用法：startup-benchmark.sh [fast|plain] [次数]
+#   fast  用 target/fast-startup/cds/run.sh 启动（需先 mvn -Pfast-startup package）
+#   plain 直接 java -jar 启动（需先 mvn package）
+# 需要 Nacos 和 MySQL 已经启动
+set -euo pipefail
+
+mode=${1:-fast}
+rounds=${2:-3}
+root=$(cd "$(dirname "$0")/.." && pwd)
+
+# 模块 端口 探测地址
+services=(
+  "share-user 8001 /actuator/metrics"
+  "share-content 8002 /actuator/metrics"
+  "share-gateway 8000 /"
+)
+
+now_ms() {
+  date +%s%3N
+}
+
+for service in "${services[@]}"; do
+  read -r module port path <<< "$service"
+  total=0
+  for ((i = 1; i <= rounds; i++)); do
+    start=$(now_ms)
+    if [ "$mode" = "fast" ]; then
+      "$root/$module/target/fast-startup/cds/run.sh" > "/tmp/$module-startup.log" 2>&1 &
+    else
+      java -jar "$root/$module/target/$module-0.0.1-SNAPSHOT.jar" > "/tmp/$module-startup.log" 2>&1 &
+    fi
+    pid=$!
+    # 任何 HTTP 响应（包括 404）都说明已经能处理请求
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$port$path")" != "000" ]; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$module 启动失败，详见 /tmp/$module-startup.log" >&2
+        exit 1
+      fi
+      sleep 0.05
+    done
+    elapsed=$(($(now_ms) - start))
+    total=$((total + elapsed))
+    echo "$module 第 $i 次：${elapsed} ms"
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+  done
+  echo "$module（$mode）平均 time-to-first-request：$((total / rounds)) ms"
+done
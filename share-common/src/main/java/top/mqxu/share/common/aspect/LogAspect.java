@@ -1,7 +1,10 @@
 package top.mqxu.share.common.aspect;
 import cn.hutool.core.util.RandomUtil;
-import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.support.spring.PropertyPreFilters;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -15,10 +18,16 @@ import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.InputStream;
+import java.util.Arrays;
 @Aspect
 @Component
 @Slf4j
 public class LogAspect {
+    @Resource
+    private ObjectMapper objectMapper;
+
     public LogAspect() {
         log.info("LogAspect");
     }
@@ -49,22 +58,29 @@ public class LogAspect {
         log.info("类名⽅法：{}，{}", signature.getDeclaringTypeName(), name)
         ;
         log.info("远程地址：{}", request.getRemoteAddr());
-        //打印请求参数
-        Object[] args = joinPoint.getArgs();
-        log.info("请求参数：{}", JSONObject.toJSONString(args));
+        //打印请求参数，请求、响应对象和流不能序列化，跳过
+        Object[] args = Arrays.stream(joinPoint.getArgs())
+                .filter(arg -> !(arg instanceof ServletRequest
+                        || arg instanceof ServletResponse
+                        || arg instanceof InputStream))
+                .toArray();
+        log.info("请求参数：{}", toJson(args));
     }
     @Around("controllerPointcut()")
     public Object doAround(ProceedingJoinPoint joinPoint) throws Throwable
     {
         long startTime = System.currentTimeMillis();
         Object result = joinPoint.proceed();
-        //排除字段，敏感字段或太⻓的字段不显示：身份证、⼿机号、邮箱、密码等
-        String[] excludeProperties = {"phone", "password"};
-        PropertyPreFilters filters = new PropertyPreFilters();
-        PropertyPreFilters.MySimplePropertyPreFilter excludeFilter = filters.addFilter();
-        excludeFilter.addExcludes(excludeProperties);
-        log.info("返回结果：{}", JSONObject.toJSONString(result, excludeFilter));
+        // 返回结果在写响应时由 ResponseBodyLogger 用已经序列化好的字节打印，这里不再序列化一遍
         log.info("------------------结束，耗时：{} ms-------------------", System.currentTimeMillis() - startTime);
         return result;
     }
-}
\ No newline at end of file
+
+    private String toJson(Object[] args) {
+        try {
+            return objectMapper.writeValueAsString(args);
+        } catch (JsonProcessingException e) {
+            return Arrays.toString(args);
+        }
+    }
+}
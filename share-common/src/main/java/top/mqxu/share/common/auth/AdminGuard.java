@@ -0,0 +1,15 @@
+package top.mqxu.share.common.auth;
+
+/**
+ * 管理接口的权限检查，share-common 里的诊断接口（链路、慢 SQL）也用它
+ * 各服务按自己能拿到的用户数据实现：user-service 直接查 user 表，content-service 调用 user-service
+ */
+public interface AdminGuard {
+
+    /**
+     * 调用者不是管理员时抛出 NO_PERMISSION
+     *
+     * @param token 调用者的 token，可以为空
+     */
+    void requireAdmin(String token);
+}
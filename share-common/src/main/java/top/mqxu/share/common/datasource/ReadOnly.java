@@ -0,0 +1,17 @@
+package top.mqxu.share.common.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记只读的 service 方法，开启读写分离后方法内的查询走从库
+ * 方法内不能有写操作；@Transactional(readOnly = true) 的方法不需要再加这个注解
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnly {
+}
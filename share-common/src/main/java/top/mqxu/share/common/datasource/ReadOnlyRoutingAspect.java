@@ -0,0 +1,24 @@
+package top.mqxu.share.common.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 执行 {@link ReadOnly} 方法期间把当前线程标记为只读
+ */
+@Aspect
+@Component
+public class ReadOnlyRoutingAspect {
+
+    @Around("@annotation(top.mqxu.share.common.datasource.ReadOnly)")
+    public Object doAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = RoutingContext.setReadOnly();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingContext.restoreReadOnly(previous);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package top.mqxu.share.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 读写分离：share.datasource.routing-enabled=true 时用路由数据源替换默认数据源
+ * 主库沿用 spring.datasource（连接池参数沿用 spring.datasource.hikari），从库在 share.datasource.replicas 中配置
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "share.datasource", name = "routing-enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadWriteDataSourceProperties.class)
+public class ReadWriteDataSourceConfig implements WebMvcConfigurer {
+
+    private final ReadWriteDataSourceProperties properties;
+
+    public ReadWriteDataSourceConfig(ReadWriteDataSourceProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // 自己建的数据源不经过 DataSourceAutoConfiguration，连接池参数要手动绑定
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        List<DataSource> replicas = properties.getReplicas().stream()
+                .map(replica -> (DataSource) DataSourceBuilder.create()
+                        .url(replica.getUrl())
+                        .username(replica.getUsername())
+                        .password(replica.getPassword())
+                        .driverClassName(replica.getDriverClassName() == null
+                                ? dataSourceProperties.getDriverClassName() : replica.getDriverClassName())
+                        .build())
+                .toList();
+        return new ReadWriteRoutingDataSource(primary, replicas, properties.getHealthCheckIntervalMs());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(properties.getReadYourWritesWindowMs()));
+    }
+}
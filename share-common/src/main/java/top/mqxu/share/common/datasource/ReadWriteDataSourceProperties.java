@@ -0,0 +1,43 @@
+package top.mqxu.share.common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置，主库使用 spring.datasource
+ */
+@Data
+@ConfigurationProperties(prefix = "share.datasource")
+public class ReadWriteDataSourceProperties {
+
+    /**
+     * 是否开启读写分离
+     */
+    private boolean routingEnabled = false;
+
+    /**
+     * 从库列表
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 从库健康检查间隔
+     */
+    private long healthCheckIntervalMs = 5000;
+
+    /**
+     * 写请求之后，同一个调用方的请求继续走主库的时间
+     */
+    private long readYourWritesWindowMs = 3000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,111 @@
+package top.mqxu.share.common.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源：只读的方法或只读事务轮询健康的从库，其余都走主库
+ * 需要包在 LazyConnectionDataSourceProxy 里，事务的只读标记设置好之后才会真正获取连接
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+
+    private final DataSource primary;
+
+    private final Map<String, DataSource> replicas = new HashMap<>();
+
+    /**
+     * 当前健康的从库，健康检查线程整体替换
+     */
+    private volatile List<String> healthyReplicas;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaList, long healthCheckIntervalMs) {
+        this.primary = primary;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaList.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicaList.get(i));
+            replicas.put(key, replicaList.get(i));
+        }
+        this.replicaKeys = replicas.keySet().stream().sorted().toList();
+        this.healthyReplicas = replicaKeys;
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!replicaKeys.isEmpty()) {
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (RoutingContext.isForcePrimary()) {
+            return PRIMARY;
+        }
+        boolean readOnly = RoutingContext.isReadOnly()
+                || (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        if (!readOnly) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(counter.getAndIncrement(), healthy.size()));
+    }
+
+    private void checkHealth() {
+        List<String> healthy = replicaKeys.stream().filter(this::isHealthy).toList();
+        if (healthy.size() != healthyReplicas.size()) {
+            log.warn("从库健康状态变化，可用从库：{}/{}", healthy, replicaKeys);
+        }
+        healthyReplicas = healthy;
+    }
+
+    private boolean isHealthy(String key) {
+        try (Connection connection = replicas.get(key).getConnection()) {
+            return connection.isValid(1);
+        } catch (Exception e) {
+            log.warn("从库 {} 健康检查失败：{}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    public void close() throws Exception {
+        healthChecker.shutdownNow();
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
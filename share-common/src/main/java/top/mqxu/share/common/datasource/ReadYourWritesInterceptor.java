@@ -0,0 +1,47 @@
+package top.mqxu.share.common.datasource;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import top.mqxu.share.util.JwtUtil;
+
+/**
+ * read-your-writes：写请求本身全部走主库；登录用户（按 token 里的用户 id）发出写请求后的一小段时间内，
+ * 该用户的请求也都走主库，避免因为主从延迟读不到自己刚写的数据
+ * 没有有效 token 的调用方（服务间的 Feign 调用、匿名请求）不进窗口：按 IP 区分的话，
+ * 同一台机器转发来的所有请求都会被一次写操作带到主库
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final TimedCache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(long windowMs) {
+        this.recentWriters = CacheUtil.newTimedCache(windowMs);
+        this.recentWriters.schedulePrune(windowMs);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long userId = JwtUtil.getUserId(request.getHeader("token"));
+        RoutingContext.setForcePrimary(isWrite(request) || userId != null && recentWriters.containsKey(userId));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RoutingContext.setForcePrimary(false);
+        if (isWrite(request)) {
+            Long userId = JwtUtil.getUserId(request.getHeader("token"));
+            if (userId != null) {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        }
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+}
@@ -0,0 +1,47 @@
+package top.mqxu.share.common.datasource;
+
+/**
+ * 当前线程的数据源路由标记
+ */
+public class RoutingContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * @return 设置之前的值，用完后传给 {@link #restoreReadOnly(Boolean)} 恢复
+     */
+    public static Boolean setReadOnly() {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restoreReadOnly(Boolean previous) {
+        if (previous == null) {
+            READ_ONLY.remove();
+        } else {
+            READ_ONLY.set(previous);
+        }
+    }
+
+    /**
+     * 强制走主库，用于刚写完数据的读请求（read-your-writes）
+     */
+    public static boolean isForcePrimary() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+
+    public static void setForcePrimary(boolean forcePrimary) {
+        if (forcePrimary) {
+            FORCE_PRIMARY.set(Boolean.TRUE);
+        } else {
+            FORCE_PRIMARY.remove();
+        }
+    }
+}
@@ -1,13 +1,37 @@
 package top.mqxu.share.common.exception;
 
 import lombok.Getter;
-import lombok.Setter;
 
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 业务异常：手机号不存在、密码错误这类预期内的结果，不需要堆栈
+ * 不填充堆栈，每个枚举预先创建一个实例，通过 {@link #of(BusinessExceptionEnum)} 复用
+ */
 @Getter
-@Setter
 public class BusinessException extends RuntimeException {
-    private BusinessExceptionEnum e;
+
+    private static final Map<BusinessExceptionEnum, BusinessException> INSTANCES = new EnumMap<>(BusinessExceptionEnum.class);
+
+    static {
+        for (BusinessExceptionEnum e : BusinessExceptionEnum.values()) {
+            INSTANCES.put(e, new BusinessException(e));
+        }
+    }
+
+    private final BusinessExceptionEnum e;
+
     public BusinessException(BusinessExceptionEnum e) {
+        // 不记录堆栈，也不支持 suppressed，实例可以安全地被多个线程共用
+        super(e.getDesc(), null, false, false);
         this.e = e;
     }
+
+    /**
+     * 预先创建好的实例，抛出时不会遍历调用栈
+     */
+    public static BusinessException of(BusinessExceptionEnum e) {
+        return INSTANCES.get(e);
+    }
 }
@@ -6,7 +6,8 @@ import lombok.Getter;
 public enum BusinessExceptionEnum {
     PHONE_NOT_EXIST("⼿机号不存在"),
     PHONE_EXIST("⼿机号已存在"),
-    PASSWORD_ERROR("密码错误");
+    PASSWORD_ERROR("密码错误"),
+    NO_PERMISSION("没有权限");
     private final String desc;
     BusinessExceptionEnum(String desc) {
         this.desc = desc;
@@ -0,0 +1,103 @@
+package top.mqxu.share.common.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.exception.BusinessExceptionEnum;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 业务异常的日志和计数
+ * aggregate 模式下每个枚举每个周期只打印前 max-per-interval 条，其余只计数，周期结束时汇总打印一条；
+ * each 模式逐条打印。两种模式都不打印堆栈，并按枚举累加 business.errors 计数器
+ */
+@Slf4j
+@Component
+public class BusinessErrorRecorder {
+
+    private final boolean aggregate;
+
+    private final long maxPerInterval;
+
+    private final long intervalSeconds;
+
+    /**
+     * 当前周期内每个枚举的次数
+     */
+    private final Map<BusinessExceptionEnum, AtomicLong> intervalCounts = new EnumMap<>(BusinessExceptionEnum.class);
+
+    private final Map<BusinessExceptionEnum, Counter> counters = new EnumMap<>(BusinessExceptionEnum.class);
+
+    private final ScheduledExecutorService scheduler;
+
+    public BusinessErrorRecorder(@Value("${share.error-log.mode:aggregate}") String mode,
+                                 @Value("${share.error-log.max-per-interval:10}") long maxPerInterval,
+                                 @Value("${share.error-log.interval-seconds:60}") long intervalSeconds,
+                                 ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.aggregate = !"each".equals(mode);
+        this.maxPerInterval = maxPerInterval;
+        this.intervalSeconds = intervalSeconds;
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        for (BusinessExceptionEnum e : BusinessExceptionEnum.values()) {
+            intervalCounts.put(e, new AtomicLong());
+            if (meterRegistry != null) {
+                counters.put(e, Counter.builder("business.errors")
+                        .description("业务异常次数")
+                        .tag("code", e.name())
+                        .register(meterRegistry));
+            }
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "business-error-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (aggregate) {
+            scheduler.scheduleAtFixedRate(this::flush, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public void record(BusinessExceptionEnum e) {
+        Counter counter = counters.get(e);
+        if (counter != null) {
+            counter.increment();
+        }
+        long count = intervalCounts.get(e).incrementAndGet();
+        if (!aggregate || count <= maxPerInterval) {
+            log.warn("业务异常：{}，{}", e.name(), e.getDesc());
+        }
+    }
+
+    /**
+     * 打印上一个周期里被省略的次数
+     */
+    private void flush() {
+        Map<String, Long> suppressed = new LinkedHashMap<>();
+        intervalCounts.forEach((e, count) -> {
+            long n = count.getAndSet(0);
+            if (n > maxPerInterval) {
+                suppressed.put(e.name(), n);
+            }
+        });
+        if (!suppressed.isEmpty()) {
+            log.warn("业务异常汇总（最近 {} 秒，每种只逐条打印前 {} 条）：{}", intervalSeconds, maxPerInterval, suppressed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -1,5 +1,7 @@
 package top.mqxu.share.common.handler;
 
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -11,11 +13,24 @@ import top.mqxu.share.common.resp.CommonResp;
 @ControllerAdvice
 @Slf4j
 public class ControllerExceptionHandler {
+    /**
+     * 系统异常的请求属性：异常在这里转成了 HTTP 200 的 CommonResp，并发限制等过滤器看不到 5xx，
+     * 通过这个属性判断请求是否出错
+     */
+    public static final String SERVER_ERROR_ATTRIBUTE = ControllerExceptionHandler.class.getName() + ".SERVER_ERROR";
+
+    @Resource
+    private BusinessErrorRecorder businessErrorRecorder;
+
     @ExceptionHandler(value = Exception.class)
     @ResponseBody
-    public CommonResp<?> exceptionHandler(Exception e) throws Exception {
+    public CommonResp<?> exceptionHandler(Exception e, HttpServletRequest request) throws Exception {
         CommonResp<?> resp = new CommonResp<>();
         log.error("系统异常", e);
+        // 各服务用 IllegalArgumentException 表示参数或业务校验失败（如积分不够），不算服务端出错
+        if (!(e instanceof IllegalArgumentException)) {
+            request.setAttribute(SERVER_ERROR_ATTRIBUTE, Boolean.TRUE);
+        }
         resp.setSuccess(false);
         resp.setMessage(e.getMessage());
         return resp;
@@ -24,7 +39,8 @@ public class ControllerExceptionHandler {
     @ResponseBody
     public CommonResp<?> exceptionHandler(BusinessException e) throws Exception {
         CommonResp<?> resp = new CommonResp<>();
-        log.error("业务异常", e);
+        // 业务异常是预期内的结果，不打印堆栈，按枚举限流汇总
+        businessErrorRecorder.record(e.getE());
         resp.setSuccess(false);
         resp.setMessage(e.getE().getDesc());
         return resp;
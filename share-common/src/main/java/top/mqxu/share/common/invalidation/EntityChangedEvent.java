@@ -0,0 +1,37 @@
+package top.mqxu.share.common.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实体变化事件：收到后各实例淘汰本地缓存里对应的条目
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EntityChangedEvent {
+    /**
+     * 实体类型，如 share、user
+     */
+    private String type;
+
+    private String id;
+
+    /**
+     * 传输层分配的单调递增序号（jdbc 为事件表的自增 id，loopback 为进程内计数），
+     * 接收方同一个实体只处理比已处理过的更大的序号，用来去掉重复到达的事件；不用发布时间，避免时钟偏差丢事件
+     */
+    private long version;
+
+    /**
+     * 发布方实例 id，实例收到自己发布的事件时忽略
+     */
+    private String source;
+
+    public String key() {
+        return type + ":" + id;
+    }
+}
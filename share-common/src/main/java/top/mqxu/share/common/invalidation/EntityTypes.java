@@ -0,0 +1,21 @@
+package top.mqxu.share.common.invalidation;
+
+/**
+ * 缓存失效事件的实体类型
+ */
+public final class EntityTypes {
+
+    public static final String SHARE = "share";
+
+    public static final String NOTICE = "notice";
+
+    public static final String USER = "user";
+
+    /**
+     * 用户兑换了分享内容，id 为 userId:shareId
+     */
+    public static final String ENTITLEMENT = "entitlement";
+
+    private EntityTypes() {
+    }
+}
@@ -0,0 +1,138 @@
+package top.mqxu.share.common.invalidation;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+import cn.hutool.core.util.RandomUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 跨实例的缓存失效总线：
+ * 1. 持有本地缓存的组件用 {@link #subscribe} 按实体类型注册淘汰逻辑
+ * 2. 修改数据后调用 {@link #publish}，本实例立即淘汰，其它实例经 {@link InvalidationTransport} 收到后淘汰
+ * 3. 发布时在 coalesce-ms 窗口内按实体合并，批量导入、批量审核这类突发的变化只发一批；
+ * 接收时同一个实体只处理序号比上次大的事件，重复到达的事件直接丢掉。序号由传输层分配，和各实例的时钟无关
+ */
+@Slf4j
+public class InvalidationBus {
+
+    private final InvalidationTransport transport;
+
+    private final String instanceId;
+
+    private final Map<String, List<Consumer<EntityChangedEvent>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * 等待发布的事件，type:id -> 最新的事件
+     */
+    private Map<String, EntityChangedEvent> pending = new LinkedHashMap<>();
+
+    /**
+     * 每个实体已处理的最大序号，只需要覆盖事件可能重复到达的时间范围
+     */
+    private final TimedCache<String, Long> appliedVersions = CacheUtil.newTimedCache(TimeUnit.MINUTES.toMillis(10));
+
+    private final ScheduledExecutorService scheduler;
+
+    public InvalidationBus(InvalidationTransport transport, InvalidationProperties properties, String applicationName) {
+        this.transport = transport;
+        this.instanceId = applicationName + "-" + RandomUtil.randomString(8);
+        this.appliedVersions.schedulePrune(TimeUnit.MINUTES.toMillis(1));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, properties.getCoalesceMs(), properties.getCoalesceMs(),
+                TimeUnit.MILLISECONDS);
+        transport.start(this::receive);
+    }
+
+    /**
+     * 注册某种实体的淘汰逻辑
+     */
+    public void subscribe(String type, Consumer<EntityChangedEvent> listener) {
+        listeners.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 发布实体变化：本实例立即淘汰，合并窗口结束后交给传输层发给其它实例
+     */
+    public void publish(String type, Object id) {
+        EntityChangedEvent event = EntityChangedEvent.builder()
+                .type(type)
+                .id(String.valueOf(id))
+                .source(instanceId)
+                .build();
+        notifyListeners(event);
+        synchronized (this) {
+            pending.put(event.key(), event);
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+        transport.stop();
+    }
+
+    private void flush() {
+        Map<String, EntityChangedEvent> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        try {
+            transport.publish(new ArrayList<>(batch.values()));
+        } catch (RuntimeException e) {
+            log.warn("发布 {} 条缓存失效事件失败：{}", batch.size(), e.toString());
+        }
+    }
+
+    private void receive(List<EntityChangedEvent> events) {
+        for (EntityChangedEvent event : events) {
+            if (!instanceId.equals(event.getSource()) && firstSeen(event)) {
+                notifyListeners(event);
+            }
+        }
+    }
+
+    private boolean firstSeen(EntityChangedEvent event) {
+        String key = event.key();
+        synchronized (appliedVersions) {
+            Long applied = appliedVersions.get(key, false);
+            if (applied != null && applied >= event.getVersion()) {
+                return false;
+            }
+            appliedVersions.put(key, event.getVersion());
+            return true;
+        }
+    }
+
+    private void notifyListeners(EntityChangedEvent event) {
+        for (Consumer<EntityChangedEvent> listener : listeners.getOrDefault(event.getType(), List.of())) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("处理缓存失效事件 {} 失败：{}", event.key(), e.toString());
+            }
+        }
+    }
+}
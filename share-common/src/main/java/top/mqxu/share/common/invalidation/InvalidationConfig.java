@@ -0,0 +1,54 @@
+package top.mqxu.share.common.invalidation;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * 缓存失效总线：share.invalidation.transport 选择传输方式，默认 loopback；服务的配置里用 jdbc，并指向两个服务共用的事件库
+ */
+@Configuration
+@EnableConfigurationProperties(InvalidationProperties.class)
+public class InvalidationConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public InvalidationBus invalidationBus(InvalidationTransport transport, InvalidationProperties properties,
+                                           @Value("${spring.application.name:app}") String applicationName) {
+        return new InvalidationBus(transport, properties, applicationName);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "share.invalidation", name = "transport", havingValue = "loopback", matchIfMissing = true)
+    public InvalidationTransport loopbackInvalidationTransport() {
+        return new LoopbackInvalidationTransport();
+    }
+
+    /**
+     * 配置了 share.invalidation.datasource.url 时单独建一个小连接池连共用的事件库，否则用服务自己的数据源
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "share.invalidation", name = "transport", havingValue = "jdbc")
+    public InvalidationTransport jdbcPollingInvalidationTransport(ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                                                  InvalidationProperties properties) {
+        InvalidationProperties.Datasource datasource = properties.getDatasource();
+        if (!StringUtils.hasText(datasource.getUrl())) {
+            return new JdbcPollingInvalidationTransport(jdbcTemplate.getObject(), properties);
+        }
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(datasource.getUrl())
+                .username(datasource.getUsername())
+                .password(datasource.getPassword())
+                .build();
+        dataSource.setPoolName("cache-invalidation");
+        dataSource.setMaximumPoolSize(datasource.getMaximumPoolSize());
+        return new JdbcPollingInvalidationTransport(dataSource, properties);
+    }
+}
@@ -0,0 +1,48 @@
+package top.mqxu.share.common.invalidation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 缓存失效总线配置
+ */
+@Data
+@ConfigurationProperties(prefix = "share.invalidation")
+public class InvalidationProperties {
+
+    /**
+     * loopback：只在本进程内传递；jdbc：通过数据库表在连到同一张表的实例之间传递
+     */
+    private String transport = "loopback";
+
+    /**
+     * 发布合并窗口：窗口内同一个实体的多次变化只发一条
+     */
+    private long coalesceMs = 50;
+
+    private long pollIntervalMs = 1000;
+
+    private int batchSize = 500;
+
+    private long retentionMinutes = 60;
+
+    private String table = "cache_invalidation";
+
+    /**
+     * 事件表所在的库，不配置 url 时用服务自己的数据源。
+     * 不同服务要互相通知（如 user-service 修改用户后 content-service 淘汰用户缓存）时配置成同一个库
+     */
+    private Datasource datasource = new Datasource();
+
+    @Data
+    public static class Datasource {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 2;
+    }
+}
@@ -0,0 +1,22 @@
+package top.mqxu.share.common.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 失效事件的传输方式，{@link InvalidationBus} 通过它把事件发给其它实例
+ */
+public interface InvalidationTransport {
+
+    /**
+     * 开始接收其它实例（也可能包括自己）发布的事件
+     */
+    void start(Consumer<List<EntityChangedEvent>> receiver);
+
+    /**
+     * 发布一批已经合并过的事件
+     */
+    void publish(List<EntityChangedEvent> events);
+
+    void stop();
+}
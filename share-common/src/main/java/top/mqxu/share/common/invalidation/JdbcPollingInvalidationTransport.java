@@ -0,0 +1,142 @@
+package top.mqxu.share.common.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 数据库轮询传输：事件批量写入 cache_invalidation 表，各实例定时按自增 id 读取新事件，不需要消息队列。
+ * 连到同一张表的实例之间互通，跨服务时配置 share.invalidation.datasource 指向共用的库（建表语句见 share-common 的 sql/cache_invalidation.sql）。
+ * 事件序号就是自增 id；自增 id 的提交顺序和分配顺序可能不同，每次多往回读 OVERLAP 条，重复的事件由总线按序号去掉。
+ * 晚提交的小 id 事件如果排在同一实体的大 id 事件之后到达会被丢掉，这时大 id 事件已经淘汰过缓存，
+ * 而小 id 事件对应的数据修改在它写入事件表之前就已经提交，淘汰后重新加载能读到
+ */
+@Slf4j
+public class JdbcPollingInvalidationTransport implements InvalidationTransport {
+
+    private static final long OVERLAP = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final InvalidationProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 已读到的最大 id，-1 表示还没有读过当前位置
+     */
+    private long lastId = -1;
+
+    private long lastCleanup;
+
+    /**
+     * 专门为事件表创建的数据源，停止时关闭；用服务自己的数据源时为 null
+     */
+    private final DataSource ownedDataSource;
+
+    public JdbcPollingInvalidationTransport(JdbcTemplate jdbcTemplate, InvalidationProperties properties) {
+        this(jdbcTemplate, properties, null);
+    }
+
+    public JdbcPollingInvalidationTransport(DataSource ownedDataSource, InvalidationProperties properties) {
+        this(new JdbcTemplate(ownedDataSource), properties, ownedDataSource);
+    }
+
+    private JdbcPollingInvalidationTransport(JdbcTemplate jdbcTemplate, InvalidationProperties properties,
+                                             DataSource ownedDataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.ownedDataSource = ownedDataSource;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start(Consumer<List<EntityChangedEvent>> receiver) {
+        scheduler.scheduleWithFixedDelay(() -> poll(receiver), properties.getPollIntervalMs(),
+                properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(List<EntityChangedEvent> events) {
+        jdbcTemplate.batchUpdate("INSERT INTO " + properties.getTable()
+                        + " (entity_type, entity_id, source, create_time) VALUES (?, ?, ?, ?)",
+                events, properties.getBatchSize(), (ps, event) -> {
+                    ps.setString(1, event.getType());
+                    ps.setString(2, event.getId());
+                    ps.setString(3, event.getSource());
+                    ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                });
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        if (ownedDataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("关闭缓存失效事件数据源失败：{}", e.toString());
+            }
+        }
+    }
+
+    private void poll(Consumer<List<EntityChangedEvent>> receiver) {
+        try {
+            if (lastId < 0) {
+                // 只接收启动之后的事件，启动前的变化本地缓存里本来就没有
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + properties.getTable(),
+                        Long.class);
+                lastId = maxId == null ? 0 : maxId;
+                return;
+            }
+            long from = Math.max(0, lastId - OVERLAP);
+            while (true) {
+                List<EntityChangedEvent> events = jdbcTemplate.query("SELECT id, entity_type, entity_id, source FROM "
+                                + properties.getTable() + " WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> EntityChangedEvent.builder()
+                                .version(rs.getLong(1))
+                                .type(rs.getString(2))
+                                .id(rs.getString(3))
+                                .source(rs.getString(4))
+                                .build(),
+                        from, properties.getBatchSize());
+                if (events.isEmpty()) {
+                    break;
+                }
+                receiver.accept(events);
+                from = events.get(events.size() - 1).getVersion();
+                lastId = Math.max(lastId, from);
+                if (events.size() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+            cleanup();
+        } catch (RuntimeException e) {
+            log.warn("读取缓存失效事件失败：{}", e.toString());
+        }
+    }
+
+    /**
+     * 每分钟删除一次超过保留时间的事件
+     */
+    private void cleanup() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanup < TimeUnit.MINUTES.toMillis(1)) {
+            return;
+        }
+        lastCleanup = now;
+        Timestamp before = new Timestamp(now - TimeUnit.MINUTES.toMillis(properties.getRetentionMinutes()));
+        jdbcTemplate.update("DELETE FROM " + properties.getTable() + " WHERE create_time < ? LIMIT 1000", before);
+    }
+}
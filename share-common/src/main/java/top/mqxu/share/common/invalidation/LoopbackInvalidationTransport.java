@@ -0,0 +1,41 @@
+package top.mqxu.share.common.invalidation;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 进程内传输：事件直接交给同一个 JVM 里所有的总线，适合单实例部署和在一个进程里启动多个上下文的测试。
+ * 事件序号取进程内的计数
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private static final Set<Consumer<List<EntityChangedEvent>>> RECEIVERS = new CopyOnWriteArraySet<>();
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private Consumer<List<EntityChangedEvent>> receiver;
+
+    @Override
+    public void start(Consumer<List<EntityChangedEvent>> receiver) {
+        this.receiver = receiver;
+        RECEIVERS.add(receiver);
+    }
+
+    @Override
+    public void publish(List<EntityChangedEvent> events) {
+        events.forEach(event -> event.setVersion(SEQUENCE.incrementAndGet()));
+        for (Consumer<List<EntityChangedEvent>> each : RECEIVERS) {
+            each.accept(events);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (receiver != null) {
+            RECEIVERS.remove(receiver);
+        }
+    }
+}
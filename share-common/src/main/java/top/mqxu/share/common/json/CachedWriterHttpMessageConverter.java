@@ -0,0 +1,76 @@
+package top.mqxu.share.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.TypeUtils;
+import top.mqxu.share.common.trace.TraceContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 响应体 JSON 序列化：按返回值的声明类型（如 CommonResp&lt;List&lt;ShareListItem&gt;&gt;）缓存 ObjectWriter，
+ * 直接写到 servlet 输出流；需要打印返回结果时先写到内存，同一份字节既写出去也交给 {@link ResponseBodyLogger}，
+ * 不再为日志重新序列化一遍。耗时记到当前请求的 serialize 阶段
+ */
+public class CachedWriterHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public static final String STAGE = "serialize";
+
+    /**
+     * 声明类型 -> ObjectWriter，类型的个数等于 controller 方法的返回类型数
+     */
+    private final ConcurrentHashMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private final ResponseBodyLogger responseBodyLogger;
+
+    public CachedWriterHttpMessageConverter(ObjectMapper objectMapper, ResponseBodyLogger responseBodyLogger) {
+        super(objectMapper);
+        this.responseBodyLogger = responseBodyLogger;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        boolean utf8 = contentType == null || contentType.getCharset() == null
+                || StandardCharsets.UTF_8.equals(contentType.getCharset());
+        // JSON view、过滤器和非 UTF-8 编码走默认实现
+        if (object instanceof MappingJacksonValue || !utf8) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // 和默认实现一样，声明类型缺失或不匹配（如 actuator 端点传入的空类型）时按实际类型
+            Type key = type != null && TypeUtils.isAssignable(type, object.getClass()) ? type : object.getClass();
+            ObjectWriter writer = writers.computeIfAbsent(key, k -> getObjectMapper().writerFor(getJavaType(k, null)));
+            // ObjectWriter 写完会关闭目标流，servlet 输出流要留给容器关闭
+            OutputStream body = StreamUtils.nonClosing(outputMessage.getBody());
+            if (responseBodyLogger.isEnabled()) {
+                ResponseBuffer buffer = ResponseBuffer.acquire();
+                try {
+                    writer.writeValue(buffer, object);
+                    buffer.writeTo(body);
+                    responseBodyLogger.log(buffer);
+                } finally {
+                    buffer.release();
+                }
+            } else {
+                writer.writeValue(body, object);
+            }
+        } finally {
+            TraceContext.record(STAGE, System.nanoTime() - start);
+        }
+    }
+}
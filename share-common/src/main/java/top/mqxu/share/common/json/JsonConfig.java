@@ -0,0 +1,48 @@
+package top.mqxu.share.common.json;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 统一的 JSON 配置：只用 Spring 的 Jackson ObjectMapper
+ * Blackbird 用生成的 lambda 代替反射读写属性；响应体由 {@link CachedWriterHttpMessageConverter} 序列化
+ */
+@Configuration
+public class JsonConfig implements WebMvcConfigurer {
+
+    @Value("${share.json.log-response:false}")
+    private boolean logResponse;
+
+    @Value("${share.json.log-max-length:4096}")
+    private int logMaxLength;
+
+    /**
+     * Spring Boot 会把 Module 类型的 bean 注册到自动配置的 ObjectMapper
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ResponseBodyLogger responseBodyLogger = new ResponseBodyLogger(logResponse, logMaxLength);
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter converter
+                    && !(converter instanceof CachedWriterHttpMessageConverter)) {
+                CachedWriterHttpMessageConverter cached =
+                        new CachedWriterHttpMessageConverter(converter.getObjectMapper(), responseBodyLogger);
+                cached.setSupportedMediaTypes(converter.getSupportedMediaTypes());
+                converters.set(i, cached);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package top.mqxu.share.common.json;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.mqxu.share.common.aspect.LogAspect;
+
+import java.util.regex.Pattern;
+
+/**
+ * 打印返回结果：直接用已经序列化好的响应字节，敏感字段打成 ***，过长的只打印前面一段
+ * 日志记在 LogAspect 名下，按 DEBUG 级别打印：share.json.log-response=true 且 LogAspect 开了 DEBUG 时才打印，
+ * 其它情况响应体直接流式写出，不经过内存缓冲
+ */
+public class ResponseBodyLogger {
+
+    private static final Logger ASPECT_LOG = LoggerFactory.getLogger(LogAspect.class);
+
+    /**
+     * 敏感字段：手机号、密码
+     */
+    private static final Pattern SENSITIVE = Pattern.compile("\"(phone|password)\"\\s*:\\s*\"(?:[^\"\\\\]|\\\\.)*\"");
+
+    private final boolean enabled;
+
+    private final int maxLength;
+
+    public ResponseBodyLogger(boolean enabled, int maxLength) {
+        this.enabled = enabled;
+        this.maxLength = maxLength;
+    }
+
+    public boolean isEnabled() {
+        return enabled && ASPECT_LOG.isDebugEnabled();
+    }
+
+    public void log(ResponseBuffer body) {
+        // 一个字符的 UTF-8 编码最多 4 个字节，只解码需要打印的那一段
+        String text = body.decode(maxLength * 4);
+        boolean truncated = text.length() > maxLength || body.size() > maxLength * 4;
+        if (text.length() > maxLength) {
+            text = text.substring(0, maxLength);
+        }
+        // 大多数响应不含敏感字段，先用 indexOf 判断，省掉正则扫描
+        if (text.contains("\"phone\"") || text.contains("\"password\"")) {
+            text = SENSITIVE.matcher(text).replaceAll("\"$1\":\"***\"");
+        }
+        if (truncated) {
+            ASPECT_LOG.debug("返回结果（共 {} 字节，只显示前 {} 个字符）：{}", body.size(), maxLength, text);
+        } else {
+            ASPECT_LOG.debug("返回结果：{}", text);
+        }
+    }
+}
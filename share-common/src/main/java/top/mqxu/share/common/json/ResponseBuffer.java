@@ -0,0 +1,40 @@
+package top.mqxu.share.common.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 需要打印返回结果时的响应缓冲区，每个线程复用一个，避免每个请求都从 1KB 扩容几次
+ */
+public class ResponseBuffer extends ByteArrayOutputStream {
+
+    /**
+     * 超过这个大小的缓冲区用完就丢掉，不让偶尔的大响应一直占着内存
+     */
+    private static final int MAX_RETAINED = 64 * 1024;
+
+    private static final ThreadLocal<ResponseBuffer> CURRENT = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private ResponseBuffer() {
+        super(8 * 1024);
+    }
+
+    public static ResponseBuffer acquire() {
+        ResponseBuffer buffer = CURRENT.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    public void release() {
+        if (buf.length > MAX_RETAINED) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * 按 UTF-8 解码前 maxBytes 个字节，不复制整个缓冲区
+     */
+    public String decode(int maxBytes) {
+        return new String(buf, 0, Math.min(count, maxBytes), StandardCharsets.UTF_8);
+    }
+}
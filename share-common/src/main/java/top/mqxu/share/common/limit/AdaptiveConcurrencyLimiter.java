@@ -0,0 +1,111 @@
+package top.mqxu.share.common.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 梯度算法的自适应并发限制：
+ * 用长期 EWMA 延迟作为基线，短期延迟超过基线 * 容忍度时按比例降低上限，延迟正常时每次增加约 sqrt(limit)；
+ * 请求出错时按 AIMD 乘性降低。并发数达到上限后新请求直接拒绝，不进 Tomcat 的队列排队
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final LimiterProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 当前上限（浮点，便于平滑）
+     */
+    private double estimatedLimit;
+
+    /**
+     * 基线延迟（纳秒）
+     */
+    private double longRtt;
+
+    /**
+     * 短期延迟（纳秒），取最近几个样本的 EWMA，减少单个慢请求的影响
+     */
+    private double shortRtt;
+
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(LimiterProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @param priority 请求优先级
+     * @return 是否获得名额，获得后必须调用 {@link #release}
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int max = Math.max(1, (int) (limit * priority.getShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放名额并用本次请求更新上限
+     *
+     * @param rttNanos 请求耗时，小于等于 0 表示不作为样本（如异步请求）
+     * @param error    是否出错
+     */
+    public void release(long rttNanos, boolean error) {
+        int current = inFlight.getAndDecrement();
+        if (error) {
+            onError();
+        } else if (rttNanos > 0) {
+            onSample(rttNanos, current);
+        }
+    }
+
+    private synchronized void onError() {
+        estimatedLimit = Math.max(properties.getMinLimit(), estimatedLimit * properties.getBackoffRatio());
+        limit = (int) estimatedLimit;
+    }
+
+    private synchronized void onSample(long rtt, int inFlightAtSample) {
+        if (longRtt == 0) {
+            longRtt = rtt;
+            shortRtt = rtt;
+            return;
+        }
+        double longAlpha = 2.0 / (properties.getLongWindow() + 1);
+        longRtt = longRtt * (1 - longAlpha) + rtt * longAlpha;
+        shortRtt = shortRtt * 0.8 + rtt * 0.2;
+
+        // 延迟明显下降（比如慢 SQL 恢复）时让基线更快跟上
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 并发用不到一半时延迟不能说明上限合不合适，不调整
+        if (inFlightAtSample < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
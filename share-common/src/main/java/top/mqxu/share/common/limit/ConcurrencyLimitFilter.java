@@ -0,0 +1,106 @@
+package top.mqxu.share.common.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import top.mqxu.share.common.handler.ControllerExceptionHandler;
+import top.mqxu.share.common.resp.CommonResp;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 自适应并发限制：超过上限的请求立即返回 503，不在 Tomcat 队列里排队拖慢所有请求
+ * actuator 请求不受限制，避免健康检查因为过载失败
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final Map<String, RequestPriority> priorities;
+
+    private final byte[] rejectBody;
+
+    private final Map<RequestPriority, Counter> rejectedCounters = new EnumMap<>(RequestPriority.class);
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, Map<String, RequestPriority> priorities,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        this.limiter = limiter;
+        this.priorities = priorities;
+        CommonResp<Void> resp = new CommonResp<>();
+        resp.setSuccess(false);
+        resp.setMessage("服务繁忙，请稍后再试！");
+        this.rejectBody = objectMapper.writeValueAsBytes(resp);
+        if (meterRegistry != null) {
+            for (RequestPriority priority : RequestPriority.values()) {
+                rejectedCounters.put(priority, Counter.builder("concurrency.rejected")
+                        .description("并发超限被拒绝的请求数")
+                        .tag("priority", priority.name())
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestPriority priority = priorityOf(request.getRequestURI());
+        if (!limiter.tryAcquire(priority)) {
+            reject(response, priority);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            filterChain.doFilter(request, response);
+            // 系统异常被 ControllerExceptionHandler 转成了 200，靠请求属性识别
+            error = response.getStatus() >= 500
+                    || request.getAttribute(ControllerExceptionHandler.SERVER_ERROR_ATTRIBUTE) != null;
+        } finally {
+            // 异步请求（流式导出、SSE）的耗时不代表处理能力，不作为样本
+            long rtt = request.isAsyncStarted() ? 0 : System.nanoTime() - start;
+            limiter.release(rtt, error);
+        }
+    }
+
+    private RequestPriority priorityOf(String path) {
+        for (Map.Entry<String, RequestPriority> entry : priorities.entrySet()) {
+            if (PATH_MATCHER.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    private void reject(HttpServletResponse response, RequestPriority priority) throws IOException {
+        Counter counter = rejectedCounters.get(priority);
+        if (counter != null) {
+            counter.increment();
+        }
+        log.debug("并发超限，拒绝请求，优先级：{}，上限：{}", priority, limiter.getLimit());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectBody.length);
+        response.getOutputStream().write(rejectBody);
+    }
+}
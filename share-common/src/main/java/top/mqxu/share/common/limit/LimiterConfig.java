@@ -0,0 +1,52 @@
+package top.mqxu.share.common.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+
+/**
+ * share.limiter.enabled=true 时注册 {@link ConcurrencyLimitFilter}，排在 TraceFilter 之后，
+ * 当前上限和并发数以 concurrency.limit、concurrency.in-flight 暴露
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "share.limiter", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LimiterProperties.class)
+public class LimiterConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(LimiterProperties properties,
+                                                                 ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+        meterRegistryProvider.ifAvailable(registry -> {
+            Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("自适应并发上限")
+                    .register(registry);
+            Gauge.builder("concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("正在处理的请求数")
+                    .register(registry);
+        });
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+                                                                                 LimiterProperties properties,
+                                                                                 ObjectMapper objectMapper,
+                                                                                 ObjectProvider<MeterRegistry> meterRegistryProvider)
+            throws IOException {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, properties.getPriorities(), objectMapper,
+                        meterRegistryProvider.getIfAvailable()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
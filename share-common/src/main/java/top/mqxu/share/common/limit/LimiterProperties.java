@@ -0,0 +1,48 @@
+package top.mqxu.share.common.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 自适应并发限制配置
+ */
+@Data
+@ConfigurationProperties(prefix = "share.limiter")
+public class LimiterProperties {
+
+    private boolean enabled = false;
+
+    private int initialLimit = 50;
+
+    private int minLimit = 10;
+
+    private int maxLimit = 500;
+
+    /**
+     * 延迟容忍度：短期延迟不超过基线的这个倍数时不降低上限
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 每次调整上限时新值的权重
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 基线延迟的 EWMA 窗口（样本数）
+     */
+    private int longWindow = 600;
+
+    /**
+     * 请求出错（5xx 或异常）时上限乘以这个系数
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 路径（Ant 风格）-> 优先级，按配置顺序匹配，未匹配的为 NORMAL
+     */
+    private Map<String, RequestPriority> priorities = new LinkedHashMap<>();
+}
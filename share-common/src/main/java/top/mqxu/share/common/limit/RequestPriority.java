@@ -0,0 +1,28 @@
+package top.mqxu.share.common.limit;
+
+import lombok.Getter;
+
+/**
+ * 请求优先级：并发数接近上限时，低优先级的请求先被拒绝
+ */
+@Getter
+public enum RequestPriority {
+    /**
+     * 兑换、登录等核心写操作，可以用满整个并发上限
+     */
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    /**
+     * 列表、热门等可以稍后重试的读请求
+     */
+    LOW(0.7);
+
+    /**
+     * 能使用的并发上限比例
+     */
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+}
@@ -0,0 +1,20 @@
+package top.mqxu.share.common.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页（keyset）结果：下一页用 nextCursor 作为 cursor 参数，nextCursor 为空表示没有下一页
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CursorPageResp<T> {
+    private List<T> list;
+    private Long nextCursor;
+}
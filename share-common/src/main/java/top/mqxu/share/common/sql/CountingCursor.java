@@ -0,0 +1,74 @@
+package top.mqxu.share.common.sql;
+
+import org.apache.ibatis.cursor.Cursor;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+
+/**
+ * 统计读出行数的游标，关闭时把行数交给回调，只回调一次
+ *
+ * @param <T> 行类型
+ */
+class CountingCursor<T> implements Cursor<T> {
+
+    private final Cursor<T> delegate;
+
+    private final LongConsumer onClose;
+
+    private long rows;
+
+    private boolean closed;
+
+    CountingCursor(Cursor<T> delegate, LongConsumer onClose) {
+        this.delegate = delegate;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return delegate.isConsumed();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return delegate.getCurrentIndex();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = delegate.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T next = iterator.next();
+                rows++;
+                return next;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            delegate.close();
+        } finally {
+            onClose.accept(rows);
+        }
+    }
+}
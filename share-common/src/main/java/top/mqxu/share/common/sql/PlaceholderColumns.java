@@ -0,0 +1,115 @@
+package top.mqxu.share.common.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从 SQL 文本里找出每个 ? 占位符绑定的列名，用于按列名脱敏参数。
+ * MyBatis-Plus 的条件构造器把参数命名成 ew.paramNameValuePairs.MPGENVALn，只看参数名认不出是哪一列。
+ * 只识别常见写法：col = ?（及其它比较运算符、LIKE）、col IN (?, ?)、INSERT INTO t (a, b) VALUES (?, ?)，
+ * 认不出的返回 null
+ */
+final class PlaceholderColumns {
+
+    /**
+     * 占位符前面紧挨着的 "列 运算符"
+     */
+    private static final Pattern COMPARISON = Pattern.compile(
+            "`?([A-Za-z_][\\w]*)`?\\s*(?:=|<>|!=|<=|>=|<|>|\\s+NOT\\s+LIKE|\\s+LIKE)\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern IN_LIST = Pattern.compile(
+            "`?([A-Za-z_][\\w]*)`?\\s+(?:NOT\\s+)?IN\\s*\\(\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern INSERT = Pattern.compile(
+            "^\\s*(?:INSERT|REPLACE)\\s+(?:IGNORE\\s+)?INTO\\s+\\S+\\s*\\(([^)]*)\\)\\s*VALUES\\s*",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 只往回看这么多字符
+     */
+    private static final int LOOK_BEHIND = 64;
+
+    private PlaceholderColumns() {
+    }
+
+    static List<String> resolve(String sql) {
+        List<String> columns = new ArrayList<>();
+        Matcher insert = INSERT.matcher(sql);
+        List<String> insertColumns = null;
+        int valuesStart = -1;
+        if (insert.find()) {
+            insertColumns = Arrays.stream(insert.group(1).split(",")).map(PlaceholderColumns::normalize).toList();
+            valuesStart = insert.end();
+        }
+
+        char quote = 0;
+        // VALUES 段里的括号深度和当前行的第几个值
+        int depth = 0;
+        int valueIndex = 0;
+        boolean inValues = valuesStart >= 0;
+        // col IN (?, ?) 里后面几个占位符沿用前一个的列名
+        String inColumn = null;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '\'' || c == '"') {
+                quote = c;
+                continue;
+            }
+            if (inValues && i >= valuesStart) {
+                if (c == '(') {
+                    if (depth++ == 0) {
+                        valueIndex = 0;
+                    }
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == ',' && depth == 1) {
+                    valueIndex++;
+                } else if (depth == 0 && Character.isLetter(c)) {
+                    // VALUES 段结束，例如 ON DUPLICATE KEY UPDATE
+                    inValues = false;
+                }
+                if (c == '?' && inValues) {
+                    columns.add(depth == 1 && valueIndex < insertColumns.size() ? insertColumns.get(valueIndex) : null);
+                    continue;
+                }
+            }
+            if (c == ')') {
+                inColumn = null;
+            }
+            if (c != '?') {
+                continue;
+            }
+            String before = sql.substring(Math.max(0, i - LOOK_BEHIND), i);
+            Matcher comparison = COMPARISON.matcher(before);
+            Matcher in = IN_LIST.matcher(before);
+            if (comparison.find()) {
+                columns.add(normalize(comparison.group(1)));
+            } else if (in.find()) {
+                inColumn = normalize(in.group(1));
+                columns.add(inColumn);
+            } else if (inColumn != null && before.stripTrailing().endsWith(",")) {
+                columns.add(inColumn);
+            } else {
+                columns.add(null);
+            }
+        }
+        return columns;
+    }
+
+    private static String normalize(String column) {
+        String name = column.trim().replace("`", "");
+        int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(dot + 1) : name).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,182 @@
+package top.mqxu.share.common.sql;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 按 mapper 语句统计耗时和行数，超过阈值的语句打印一条日志（参数脱敏）
+ * 取代生产环境里开 mapper debug 日志逐条打印 SQL 的做法。
+ * 参数按 SQL 里绑定的列名脱敏：字符串参数默认打印成 ***，只有绑定到 plainColumns 里的列才原样打印；
+ * 数字、布尔、时间等参数原样打印，但列名或参数名包含 maskKeywords 的一律打印成 ***。
+ * 游标查询（如流式导出）在游标关闭时记录：耗时取执行语句、打开游标的时间，行数取实际读出的行数
+ */
+@Slf4j
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class SlowSqlInterceptor implements Interceptor {
+
+    /**
+     * 超过这个长度的字符串参数只打印前面一段
+     */
+    private static final int MAX_PARAM_LENGTH = 32;
+
+    private final SqlStatsRegistry registry;
+
+    private final long slowNanos;
+
+    /**
+     * 列名或参数名包含这些关键字（不区分大小写）时打印成 ***
+     */
+    private final List<String> maskKeywords;
+
+    /**
+     * 字符串参数绑定到这些列时原样打印
+     */
+    private final Set<String> plainColumns;
+
+    public SlowSqlInterceptor(SqlStatsRegistry registry, long slowMs, List<String> maskKeywords,
+                              List<String> plainColumns) {
+        this.registry = registry;
+        this.slowNanos = slowMs * 1_000_000;
+        this.maskKeywords = maskKeywords.stream().map(keyword -> keyword.toLowerCase(Locale.ROOT)).toList();
+        this.plainColumns = plainColumns.stream().map(column -> column.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            record(statementHandler, System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        if (result instanceof Cursor<?> cursor) {
+            return new CountingCursor<>(cursor, rows -> record(statementHandler, nanos, rows, false));
+        }
+        record(statementHandler, nanos, rows(result), false);
+        return result;
+    }
+
+    private void record(StatementHandler statementHandler, long nanos, long rows, boolean error) {
+        PluginUtils.MPStatementHandler handler = PluginUtils.mpStatementHandler(statementHandler);
+        MappedStatement mappedStatement = handler.mappedStatement();
+        registry.record(mappedStatement.getId(), nanos, rows, error);
+        if (nanos >= slowNanos) {
+            log.warn("慢 SQL：{}，耗时：{} ms，行数：{}，{}SQL：{}，参数：{}", mappedStatement.getId(),
+                    nanos / 1_000_000, rows, error ? "执行失败，" : "",
+                    handler.boundSql().getSql().replaceAll("\\s+", " "),
+                    maskedParameters(handler.configuration(), handler.boundSql()));
+        }
+    }
+
+    /**
+     * 查询返回的行数或更新影响的行数，batch 在执行 executeBatch 前拿不到行数，记为 0
+     */
+    private long rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Integer count) {
+            return count;
+        }
+        return 0;
+    }
+
+    /**
+     * 按占位符顺序取出参数值，按绑定的列名脱敏
+     */
+    List<Object> maskedParameters(Configuration configuration, BoundSql boundSql) {
+        List<Object> values = new ArrayList<>();
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<String> columns = PlaceholderColumns.resolve(boundSql.getSql());
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        for (int i = 0; i < mappings.size(); i++) {
+            ParameterMapping mapping = mappings.get(i);
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.hasGetter(property) ? metaObject.getValue(property) : null;
+            }
+            // 占位符和参数映射一一对应，数不上时（SQL 里有认不出的占位符写法）按列名未知处理
+            String column = columns.size() == mappings.size() ? columns.get(i) : null;
+            values.add(mask(column, property, value));
+        }
+        return values;
+    }
+
+    private Object mask(String column, String property, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (matchesKeyword(column) || matchesKeyword(property)) {
+            return "***";
+        }
+        if (!(value instanceof Number || value instanceof Boolean || value instanceof Date
+                || value instanceof Temporal || value instanceof Enum<?>)
+                && (column == null || !plainColumns.contains(column))) {
+            return "***";
+        }
+        if (value instanceof CharSequence text && text.length() > MAX_PARAM_LENGTH) {
+            return text.subSequence(0, MAX_PARAM_LENGTH) + "...(" + text.length() + ")";
+        }
+        return value;
+    }
+
+    private boolean matchesKeyword(String name) {
+        if (name == null) {
+            return false;
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String keyword : maskKeywords) {
+            if (lower.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package top.mqxu.share.common.sql;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单条 mapper 语句的统计快照，分位数是按直方图估算的桶上界
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SqlStatementResp {
+
+    /**
+     * mapper 语句 id，如 top.mqxu.share.content.mapper.ShareMapper.selectById
+     */
+    private String statement;
+
+    private Long count;
+
+    private Long errors;
+
+    /**
+     * 查询返回的行数或更新影响的行数之和
+     */
+    private Long rows;
+
+    private Double avgMs;
+
+    private Double maxMs;
+
+    private Double p50Ms;
+
+    private Double p95Ms;
+
+    private Double p99Ms;
+
+    /**
+     * 各桶的次数，桶上界为 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 ms，最后一个桶是更慢的
+     */
+    private long[] histogram;
+}
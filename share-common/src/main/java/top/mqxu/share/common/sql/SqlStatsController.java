@@ -0,0 +1,38 @@
+package top.mqxu.share.common.sql;
+
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import top.mqxu.share.common.auth.AdminGuard;
+import top.mqxu.share.common.resp.CommonResp;
+
+import java.util.List;
+
+/**
+ * 查看本服务最慢的 mapper 语句，语句 id 和耗时属于内部信息，只有管理员能查看
+ */
+@RestController
+@RequestMapping("/sql")
+public class SqlStatsController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Resource
+    private SqlStatsRegistry sqlStatsRegistry;
+
+    @Resource
+    private AdminGuard adminGuard;
+
+    @GetMapping("/slowest")
+    public CommonResp<List<SqlStatementResp>> slowest(@RequestParam(value = "orderBy", defaultValue = "p99") String orderBy,
+                                                      @RequestParam(value = "limit", defaultValue = "10") Integer limit,
+                                                      @RequestHeader(value = "token", required = false) String token) {
+        adminGuard.requireAdmin(token);
+        CommonResp<List<SqlStatementResp>> commonResp = new CommonResp<>();
+        commonResp.setData(sqlStatsRegistry.top(orderBy, Math.min(Math.max(limit, 1), MAX_LIMIT)));
+        return commonResp;
+    }
+}
@@ -0,0 +1,42 @@
+package top.mqxu.share.common.sql;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 所有 mapper 语句的统计，语句 id 的个数固定（等于 mapper 方法数），不需要淘汰
+ */
+@Component
+public class SqlStatsRegistry {
+
+    private final ConcurrentHashMap<String, StatementStats> stats = new ConcurrentHashMap<>();
+
+    public void record(String statement, long nanos, long rows, boolean error) {
+        stats.computeIfAbsent(statement, k -> new StatementStats()).record(nanos, rows, error);
+    }
+
+    /**
+     * 最慢的 limit 条语句
+     *
+     * @param orderBy 排序依据：p99、max、avg 或 total（平均耗时 * 次数）
+     * @param limit   条数
+     * @return 语句统计，慢的在前
+     */
+    public List<SqlStatementResp> top(String orderBy, int limit) {
+        Comparator<SqlStatementResp> comparator = switch (orderBy) {
+            case "p99" -> Comparator.comparing(SqlStatementResp::getP99Ms);
+            case "max" -> Comparator.comparing(SqlStatementResp::getMaxMs);
+            case "avg" -> Comparator.comparing(SqlStatementResp::getAvgMs);
+            case "total" -> Comparator.comparing(resp -> resp.getAvgMs() * resp.getCount());
+            default -> throw new IllegalArgumentException("排序依据只能是 p99、max、avg 或 total！");
+        };
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(comparator.reversed())
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,93 @@
+package top.mqxu.share.common.sql;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条 mapper 语句的统计：次数、失败次数、行数、总耗时、最大耗时和固定分桶的延迟直方图
+ */
+public class StatementStats {
+
+    /**
+     * 直方图的桶上界（毫秒），最后一个桶放超过 5000 ms 的
+     */
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+    void record(long nanos, long rowCount, boolean error) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        if (error) {
+            errors.increment();
+        } else {
+            rows.add(rowCount);
+        }
+        buckets.incrementAndGet(bucketOf(nanos / 1_000_000));
+    }
+
+    private int bucketOf(long ms) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (ms < BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    /**
+     * 按直方图估算分位数，返回所在桶的上界（毫秒），最后一个桶返回最大耗时
+     */
+    double percentileMs(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    SqlStatementResp snapshot(String statement) {
+        long n = count.sum();
+        long[] histogram = new long[buckets.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = buckets.get(i);
+        }
+        return SqlStatementResp.builder()
+                .statement(statement)
+                .count(n)
+                .errors(errors.sum())
+                .rows(rows.sum())
+                .avgMs(n == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / n)
+                .maxMs(maxNanos.get() / 1_000_000.0)
+                .p50Ms(percentileMs(0.5))
+                .p95Ms(percentileMs(0.95))
+                .p99Ms(percentileMs(0.99))
+                .histogram(histogram)
+                .build();
+    }
+}
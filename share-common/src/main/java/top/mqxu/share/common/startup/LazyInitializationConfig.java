@@ -0,0 +1,51 @@
+package top.mqxu.share.common.startup;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+
+import javax.sql.DataSource;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/**
+ * spring.main.lazy-initialization=true 时（fast-startup 的启动脚本会开启），只有非关键的 bean 懒加载，
+ * 下面这些仍然在启动时创建：
+ * 1. 控制器，连带它依赖的 service、mapper、Feign 客户端，第一个请求不用现场初始化整条调用链
+ * 2. 数据源，连接池在启动时建好
+ * 3. 带 @Scheduled、@PostConstruct、@EventListener 方法的 bean，否则定时任务、订阅、事件监听要等到第一次被注入才生效
+ * 4. 生命周期、监听器和启动任务
+ * 剩下懒加载的主要是 actuator 端点和用不到的自动配置
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    private static final List<Class<? extends Annotation>> EAGER_METHOD_ANNOTATIONS =
+            List.of(Scheduled.class, PostConstruct.class, EventListener.class);
+
+    private static final List<Class<?>> EAGER_TYPES = List.of(DataSource.class, SmartLifecycle.class,
+            ApplicationListener.class, ApplicationRunner.class, CommandLineRunner.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                || EAGER_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                || EAGER_METHOD_ANNOTATIONS.stream().anyMatch(annotation -> hasAnnotatedMethod(beanType, annotation));
+    }
+
+    private static boolean hasAnnotatedMethod(Class<?> beanType, Class<? extends Annotation> annotation) {
+        return !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Annotation>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, annotation)).isEmpty();
+    }
+}
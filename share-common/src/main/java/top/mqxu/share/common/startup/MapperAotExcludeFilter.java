@@ -0,0 +1,17 @@
+package top.mqxu.share.common.startup;
+
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.support.RegisteredBean;
+
+/**
+ * AOT 不生成 mapper 的 bean 定义：@MapperScan 注册的 MapperScannerConfigurer 运行时还会再扫描一遍，
+ * 两份定义同名会启动失败。只扫描 mapper 包，代价很小
+ */
+public class MapperAotExcludeFilter implements BeanRegistrationExcludeFilter {
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return MapperFactoryBean.class.isAssignableFrom(registeredBean.getBeanClass());
+    }
+}
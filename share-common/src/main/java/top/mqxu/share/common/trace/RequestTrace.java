@@ -0,0 +1,59 @@
+package top.mqxu.share.common.trace;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次请求的链路记录：每个阶段累计的次数和耗时，只在处理请求的线程里修改
+ */
+@Getter
+public class RequestTrace {
+
+    private final String traceId;
+
+    private final String method;
+
+    private final String path;
+
+    private final long startTime;
+
+    private final long startNanos;
+
+    /**
+     * 阶段 -> [次数, 总耗时纳秒]
+     */
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    public RequestTrace(String traceId, String method, String path) {
+        this.traceId = traceId;
+        this.method = method;
+        this.path = path;
+        this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    void record(String stage, long nanos) {
+        long[] stat = stages.computeIfAbsent(stage, k -> new long[2]);
+        stat[0]++;
+        stat[1] += nanos;
+    }
+
+    /**
+     * 请求结束，转换成不可变的 {@link TraceRecord}
+     */
+    public TraceRecord finish(int status) {
+        Map<String, TraceRecord.Stage> result = new LinkedHashMap<>();
+        stages.forEach((stage, stat) -> result.put(stage, new TraceRecord.Stage(stat[0], stat[1] / 1_000_000.0)));
+        return TraceRecord.builder()
+                .traceId(traceId)
+                .method(method)
+                .path(path)
+                .status(status)
+                .startTime(startTime)
+                .totalMs((System.nanoTime() - startNanos) / 1_000_000.0)
+                .stages(result)
+                .build();
+    }
+}
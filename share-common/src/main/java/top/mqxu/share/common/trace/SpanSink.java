@@ -0,0 +1,71 @@
+package top.mqxu.share.common.trace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 本地的链路记录：保留最近 capacity 条请求，慢请求额外打一条日志
+ */
+@Slf4j
+@Component
+public class SpanSink {
+
+    private final int capacity;
+
+    private final long slowMs;
+
+    private final ArrayDeque<TraceRecord> records;
+
+    public SpanSink(@Value("${share.trace.sink-capacity:500}") int capacity,
+                    @Value("${share.trace.slow-ms:1000}") long slowMs) {
+        this.capacity = capacity;
+        this.slowMs = slowMs;
+        this.records = new ArrayDeque<>(capacity);
+    }
+
+    public void accept(TraceRecord record) {
+        if (record.getTotalMs() >= slowMs) {
+            log.warn("慢请求：{} {}，状态：{}，耗时：{} ms，阶段：{}", record.getMethod(), record.getPath(),
+                    record.getStatus(), record.getTotalMs(), record.getStages());
+        }
+        synchronized (records) {
+            if (records.size() >= capacity) {
+                records.pollFirst();
+            }
+            records.addLast(record);
+        }
+    }
+
+    /**
+     * 最近的请求，新的在前
+     */
+    public List<TraceRecord> recent(int limit) {
+        List<TraceRecord> result = new ArrayList<>(Math.min(limit, capacity));
+        synchronized (records) {
+            Iterator<TraceRecord> iterator = records.descendingIterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next());
+            }
+        }
+        return result;
+    }
+
+    public TraceRecord find(String traceId) {
+        synchronized (records) {
+            Iterator<TraceRecord> iterator = records.descendingIterator();
+            while (iterator.hasNext()) {
+                TraceRecord record = iterator.next();
+                if (record.getTraceId().equals(traceId)) {
+                    return record;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package top.mqxu.share.common.trace;
+
+import cn.hutool.core.util.RandomUtil;
+import org.slf4j.MDC;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 当前线程的链路上下文：trace id 放在 MDC 的 LOG_ID 里，各阶段耗时记在 {@link RequestTrace} 里
+ * trace id 由网关生成，通过 X-Trace-Id 请求头传给下游服务，Feign 调用时继续往下传
+ */
+public final class TraceContext {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    public static final String MDC_KEY = "LOG_ID";
+
+    /**
+     * 只接受这种格式的外部 trace id，避免日志注入
+     */
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private TraceContext() {
+    }
+
+    /**
+     * 生成新的 trace id，和原来 LOG_ID 的格式一致
+     */
+    public static String newTraceId() {
+        return System.currentTimeMillis() + RandomUtil.randomString(5);
+    }
+
+    /**
+     * 校验上游传来的 trace id，不合法时重新生成
+     */
+    public static String accept(String traceId) {
+        return traceId != null && VALID_ID.matcher(traceId).matches() ? traceId : newTraceId();
+    }
+
+    public static void begin(RequestTrace trace) {
+        CURRENT.set(trace);
+        MDC.put(MDC_KEY, trace.getTraceId());
+    }
+
+    public static RequestTrace end() {
+        RequestTrace trace = CURRENT.get();
+        CURRENT.remove();
+        MDC.remove(MDC_KEY);
+        return trace;
+    }
+
+    /**
+     * 当前的 trace id，不在请求里时返回 null
+     */
+    public static String traceId() {
+        return MDC.get(MDC_KEY);
+    }
+
+    /**
+     * 记录一个阶段的耗时，不在请求里时忽略
+     *
+     * @param stage 阶段，如 db、feign、serialize
+     * @param nanos 耗时（纳秒）
+     */
+    public static void record(String stage, long nanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.record(stage, nanos);
+        }
+    }
+
+    public static <T> T time(String stage, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+}
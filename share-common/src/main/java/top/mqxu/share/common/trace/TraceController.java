@@ -0,0 +1,52 @@
+package top.mqxu.share.common.trace;
+
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import top.mqxu.share.common.auth.AdminGuard;
+import top.mqxu.share.common.resp.CommonResp;
+
+import java.util.List;
+
+/**
+ * 查看本服务最近的请求链路，链路里有其他用户的请求路径，只有管理员能查看
+ */
+@RestController
+@RequestMapping("/trace")
+public class TraceController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Resource
+    private SpanSink spanSink;
+
+    @Resource
+    private AdminGuard adminGuard;
+
+    @GetMapping("/recent")
+    public CommonResp<List<TraceRecord>> recent(@RequestParam(value = "limit", defaultValue = "50") Integer limit,
+                                                @RequestHeader(value = "token", required = false) String token) {
+        adminGuard.requireAdmin(token);
+        CommonResp<List<TraceRecord>> commonResp = new CommonResp<>();
+        commonResp.setData(spanSink.recent(Math.min(Math.max(limit, 1), MAX_LIMIT)));
+        return commonResp;
+    }
+
+    @GetMapping("/{traceId}")
+    public CommonResp<TraceRecord> get(@PathVariable String traceId,
+                                       @RequestHeader(value = "token", required = false) String token) {
+        adminGuard.requireAdmin(token);
+        CommonResp<TraceRecord> commonResp = new CommonResp<>();
+        TraceRecord record = spanSink.find(traceId);
+        if (record == null) {
+            commonResp.setSuccess(false);
+            commonResp.setMessage("链路记录不存在或已被淘汰");
+        }
+        commonResp.setData(record);
+        return commonResp;
+    }
+}
@@ -0,0 +1,39 @@
+package top.mqxu.share.common.trace;
+
+import jakarta.annotation.Resource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 读取网关传来的 X-Trace-Id（直接访问服务时重新生成），放进 MDC 并写回响应头，
+ * 请求结束后把各阶段耗时交给 {@link SpanSink}
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceFilter extends OncePerRequestFilter {
+
+    @Resource
+    private SpanSink spanSink;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = TraceContext.accept(request.getHeader(TraceContext.HEADER));
+        response.setHeader(TraceContext.HEADER, traceId);
+        TraceContext.begin(new RequestTrace(traceId, request.getMethod(), request.getRequestURI()));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTrace trace = TraceContext.end();
+            spanSink.accept(trace.finish(response.getStatus()));
+        }
+    }
+}
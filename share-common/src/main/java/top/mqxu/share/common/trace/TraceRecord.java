@@ -0,0 +1,48 @@
+package top.mqxu.share.common.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 一次请求结束后的链路记录，保存在 {@link SpanSink} 里
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TraceRecord {
+
+    private String traceId;
+
+    private String method;
+
+    private String path;
+
+    private Integer status;
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private Long startTime;
+
+    private Double totalMs;
+
+    /**
+     * 阶段 -> 次数和耗时
+     */
+    private Map<String, Stage> stages;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Stage {
+
+        private Long count;
+
+        private Double totalMs;
+    }
+}
@@ -0,0 +1,35 @@
+package top.mqxu.share.common.trace;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.sql.Statement;
+
+/**
+ * 记录 SQL 执行耗时到当前请求的 db 阶段，只统计语句执行，不含获取连接和拼 SQL
+ * 游标查询只统计打开游标的时间，逐行读取的时间不算在内
+ */
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class TraceSqlInterceptor implements Interceptor {
+
+    public static final String STAGE = "db";
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            TraceContext.record(STAGE, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package top.mqxu.share.common.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 预热完成、注册中心里的实例改为 UP 之前 warmUp 为 OUT_OF_SERVICE，加入 readiness 健康组后就绪探针会失败：
+ * management.endpoint.health.group.readiness.include: readinessState,warmUp
+ */
+@Configuration
+@ConditionalOnClass(HealthIndicator.class)
+public class WarmUpHealthConfig {
+
+    @Bean
+    public HealthIndicator warmUpHealthIndicator(WarmUpRunner warmUpRunner) {
+        return () -> {
+            if (!warmUpRunner.isFinished()) {
+                return Health.outOfService().build();
+            }
+            if (!warmUpRunner.isRegistryUp()) {
+                return Health.outOfService().withDetail("registry", String.valueOf(warmUpRunner.getRegistryError())).build();
+            }
+            return Health.up().build();
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package top.mqxu.share.common.warmup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * 开启预热时（share.warm-up.enabled 默认为 true），实例以 enabled=false 注册到 Nacos，
+ * 自动注册发生在 Web 服务器启动时，早于预热开始，如果先按可用注册再改成 DOWN，中间这段时间会接到流量；
+ * 预热结束后由 {@link WarmUpRunner} 改为 UP。放在最低优先级，显式配置了 instance-enabled 的以配置为准
+ */
+public class WarmUpRegistrationEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("share.warm-up.enabled", Boolean.class, true)) {
+            return;
+        }
+        environment.getPropertySources().addLast(new MapPropertySource("warmUpRegistration", Map.of(
+                "spring.cloud.nacos.discovery.instance-enabled", "false")));
+    }
+}
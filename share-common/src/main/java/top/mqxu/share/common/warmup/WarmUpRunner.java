@@ -0,0 +1,246 @@
+package top.mqxu.share.common.warmup;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 启动预热：上下文就绪后在后台线程执行所有 {@link WarmUpTask}，再向本机发送合成请求让主要接口的代码被 JIT 编译。
+ * 预热完成或超时之前，warmUp 健康检查是 OUT_OF_SERVICE（就绪探针失败），
+ * 注册中心里的实例从注册起就是不可用的（见 {@link WarmUpRegistrationEnvironmentPostProcessor}），预热结束后才改为 UP，
+ * 网关和负载均衡只会把流量分给预热过的实例。改为 UP 失败（如注册中心暂时不可用）时按指数退避一直重试，
+ * 成功之前 warmUp 也保持 OUT_OF_SERVICE，并在健康检查详情里给出最近一次失败原因
+ */
+@Slf4j
+@Component
+public class WarmUpRunner {
+
+    /**
+     * 合成请求带上这个请求头，方便在日志里区分
+     */
+    public static final String HEADER = "X-Warm-Up";
+
+    @Resource
+    private ObjectProvider<WarmUpTask> tasks;
+
+    @Resource
+    private ObjectProvider<ServiceRegistry<Registration>> serviceRegistry;
+
+    @Resource
+    private ObjectProvider<Registration> registration;
+
+    @Resource
+    private Environment environment;
+
+    @Value("${share.warm-up.enabled:true}")
+    private boolean enabled;
+
+    @Value("${share.warm-up.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${share.warm-up.requests:}")
+    private List<String> requests;
+
+    /**
+     * 合成请求额外的请求头，格式 name:value
+     */
+    @Value("${share.warm-up.headers:}")
+    private List<String> headers;
+
+    @Value("${share.warm-up.rounds:50}")
+    private int rounds;
+
+    /**
+     * 注册中心状态改为 UP 失败后的首次重试间隔，之后每次翻倍，最长 registry-retry-max-ms
+     */
+    @Value("${share.warm-up.registry-retry-ms:1000}")
+    private long registryRetryMs;
+
+    @Value("${share.warm-up.registry-retry-max-ms:30000}")
+    private long registryRetryMaxMs;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean finished;
+
+    private volatile boolean registryUp;
+
+    private volatile String registryError;
+
+    private volatile boolean closed;
+
+    /**
+     * Spring Boot 在所有 ApplicationReadyEvent 监听器（如热门数据重建）执行完后才发布 ACCEPTING_TRAFFIC，
+     * 从这里开始预热，任务能用到这些监听器加载的数据
+     */
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !started.compareAndSet(false, true)) {
+            return;
+        }
+        if (!enabled) {
+            finish(0);
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread worker = new Thread(() -> {
+            try {
+                runTasks(deadline);
+                sendRequests(deadline);
+            } finally {
+                done.complete(null);
+            }
+        }, "warm-up");
+        worker.setDaemon(true);
+        worker.start();
+        done.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        log.warn("预热超时（{} ms），剩余任务在后台继续执行", timeoutMs);
+                    }
+                    finish(start);
+                });
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 注册中心里的实例已经改为 UP（或者本实例没有注册到注册中心）
+     */
+    public boolean isRegistryUp() {
+        return registryUp;
+    }
+
+    /**
+     * 最近一次修改注册中心状态失败的原因，成功后清空
+     */
+    public String getRegistryError() {
+        return registryError;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+    }
+
+    private void finish(long start) {
+        finished = true;
+        if (start > 0) {
+            log.info("预热结束，耗时 {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        markRegistryUp(registryRetryMs);
+    }
+
+    /**
+     * 实例以不可用状态注册，这一步失败的话会一直接不到流量，所以失败后定时重试直到成功或应用关闭
+     */
+    private void markRegistryUp(long retryMs) {
+        if (closed) {
+            return;
+        }
+        if (setRegistryStatus("UP")) {
+            registryUp = true;
+            registryError = null;
+            return;
+        }
+        log.warn("{} ms 后重试更新注册中心实例状态", retryMs);
+        long next = Math.min(retryMs * 2, registryRetryMaxMs);
+        CompletableFuture.runAsync(() -> markRegistryUp(next),
+                CompletableFuture.delayedExecutor(retryMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void runTasks(long deadline) {
+        for (WarmUpTask task : tasks.orderedStream().toList()) {
+            if (System.nanoTime() > deadline) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                task.run();
+                log.info("预热任务 {} 完成，耗时 {} ms", task.name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception e) {
+                log.warn("预热任务 {} 失败：{}", task.name(), e.toString());
+            }
+        }
+    }
+
+    /**
+     * 向本机依次发送配置的请求 rounds 轮，只关心代码路径被执行，不检查响应内容
+     */
+    private void sendRequests(long deadline) {
+        String port = environment.getProperty("local.server.port");
+        if (requests == null || requests.isEmpty() || port == null) {
+            return;
+        }
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        int sent = 0;
+        int failed = 0;
+        for (int i = 0; i < rounds && System.nanoTime() < deadline; i++) {
+            for (String path : requests) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                        .header(HEADER, "1")
+                        .timeout(Duration.ofSeconds(5))
+                        .GET();
+                for (String header : headers) {
+                    int colon = header.indexOf(':');
+                    if (colon > 0) {
+                        builder.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+                    }
+                }
+                try {
+                    client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+                } catch (Exception e) {
+                    failed++;
+                }
+                sent++;
+            }
+        }
+        log.info("预热请求 {} 个，失败 {} 个", sent, failed);
+    }
+
+    /**
+     * @return 是否更新成功，实例不在注册中心里时视为成功
+     */
+    private boolean setRegistryStatus(String status) {
+        // 没有自动注册（如 share.discovery.mode=static）时实例不在注册中心里
+        if (!environment.getProperty("spring.cloud.service-registry.auto-registration.enabled", Boolean.class, true)) {
+            return true;
+        }
+        ServiceRegistry<Registration> registry = serviceRegistry.getIfAvailable();
+        Registration current = registration.getIfAvailable();
+        if (registry == null || current == null) {
+            return true;
+        }
+        try {
+            registry.setStatus(current, status);
+            return true;
+        } catch (RuntimeException e) {
+            registryError = e.toString();
+            log.warn("更新注册中心实例状态 {} 失败：{}", status, e.toString());
+            return false;
+        }
+    }
+}
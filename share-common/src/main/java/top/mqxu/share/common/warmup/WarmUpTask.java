@@ -0,0 +1,15 @@
+package top.mqxu.share.common.warmup;
+
+/**
+ * 启动预热任务：预加载热点数据、建立连接等，由 {@link WarmUpRunner} 在服务就绪前依次执行
+ * 多个任务按 @Order 排序，单个任务失败只打印日志，不影响其它任务
+ */
+public interface WarmUpTask {
+
+    /**
+     * 任务名，用于日志
+     */
+    String name();
+
+    void run() throws Exception;
+}
@@ -11,7 +11,10 @@ import org.springframework.web.servlet.HandlerInterceptor;
 public class LoginInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        MDC.put("LOG_ID", System.currentTimeMillis() + RandomUtil.randomString(3));
+        // TraceFilter 已经放了网关传来的 trace id 时不覆盖
+        if (MDC.get("LOG_ID") == null) {
+            MDC.put("LOG_ID", System.currentTimeMillis() + RandomUtil.randomString(3));
+        }
         return true;
     }
 }
@@ -39,6 +39,26 @@ public class JwtUtil {
         log.info("JWT token 校验结果：{}", validate);
         return validate;
     }
+    /**
+     * 校验 token 并取出用户 id
+     *
+     * @return token 为空、无效或格式错误时返回 null
+     */
+    public static Long getUserId(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            JWT jwt = JWTUtil.parseToken(token).setKey(KEY.getBytes());
+            if (!jwt.validate(0)) {
+                return null;
+            }
+            Object id = jwt.getPayload("id");
+            return id == null ? null : Long.valueOf(id.toString());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
     public static JSONObject getJSONObject(String token) {
         JWT jwt = JWTUtil.parseToken(token).setKey(KEY.getBytes());
         JSONObject payloads = jwt.getPayloads();
@@ -0,0 +1,21 @@
+package top.mqxu.share.util;
+
+/**
+ * 用户角色：user 表的 roles 字段，多个角色用逗号分隔
+ */
+public class RoleUtil {
+
+    public static final String ADMIN = "admin";
+
+    public static boolean isAdmin(String roles) {
+        if (roles == null) {
+            return false;
+        }
+        for (String role : roles.split(",")) {
+            if (ADMIN.equalsIgnoreCase(role.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
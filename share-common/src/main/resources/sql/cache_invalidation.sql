@@ -0,0 +1,14 @@
+-- 缓存失效事件：share.invalidation.transport=jdbc 时各实例写入并轮询，超过保留时间的记录自动删除
+-- user-service 和 content-service 的 share.invalidation.datasource 都指向 share_bus 库，两个服务的事件互通
+-- 之前分别建在 user_center、content_center 里的 cache_invalidation 表不再使用，可以删除
+CREATE DATABASE IF NOT EXISTS share_bus DEFAULT CHARACTER SET utf8mb4;
+
+CREATE TABLE IF NOT EXISTS share_bus.cache_invalidation
+(
+    id          BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY COMMENT '自增 id，实例按 id 顺序读取，也是事件序号',
+    entity_type VARCHAR(50)  NOT NULL COMMENT '实体类型：share、notice、user',
+    entity_id   VARCHAR(64)  NOT NULL COMMENT '实体 id',
+    source      VARCHAR(100) NOT NULL COMMENT '发布方实例 id',
+    create_time DATETIME     NOT NULL COMMENT '写入时间',
+    KEY idx_create_time (create_time)
+) COMMENT '缓存失效事件';
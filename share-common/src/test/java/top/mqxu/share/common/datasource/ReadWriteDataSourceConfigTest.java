@@ -0,0 +1,41 @@
+package top.mqxu.share.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * 路由数据源里的主库是手动创建的，spring.datasource.hikari 下的连接池参数也要生效
+ */
+class ReadWriteDataSourceConfigTest {
+
+    @Test
+    void primaryPicksUpHikariSettings() throws Exception {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:h2:mem:rw-config;DB_CLOSE_DELAY=-1");
+        dataSourceProperties.setUsername("sa");
+        dataSourceProperties.setPassword("");
+        dataSourceProperties.afterPropertiesSet();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "7")
+                .withProperty("spring.datasource.hikari.connection-timeout", "1500")
+                .withProperty("spring.datasource.hikari.pool-name", "share-primary");
+
+        ReadWriteDataSourceConfig config = new ReadWriteDataSourceConfig(new ReadWriteDataSourceProperties());
+        ReadWriteRoutingDataSource routing = config.readWriteRoutingDataSource(dataSourceProperties, environment);
+        try {
+            routing.afterPropertiesSet();
+            HikariDataSource primary = assertInstanceOf(HikariDataSource.class, routing.getResolvedDefaultDataSource());
+            assertEquals(7, primary.getMaximumPoolSize());
+            assertEquals(1500, primary.getConnectionTimeout());
+            assertEquals("share-primary", primary.getPoolName());
+            assertEquals("jdbc:h2:mem:rw-config;DB_CLOSE_DELAY=-1", primary.getJdbcUrl());
+        } finally {
+            routing.close();
+        }
+    }
+}
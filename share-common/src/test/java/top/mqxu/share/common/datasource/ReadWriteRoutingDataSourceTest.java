@@ -0,0 +1,134 @@
+package top.mqxu.share.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 读写分离路由：两个内嵌 H2 数据库分别作为主库和从库，每个库的 db_name 表里只有自己的名字，
+ * 查出来的名字就是实际路由到的库
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    /**
+     * 从库可以被“停掉”：停掉后获取连接直接失败（内嵌库 shutdown 后再连会新建一个空库，模拟不了宕机）
+     */
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSource switchableReplica = new DelegatingDataSource(replica) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaDown.get()) {
+                    throw new SQLException("replica down");
+                }
+                return super.getConnection();
+            }
+        };
+        routingDataSource = new ReadWriteRoutingDataSource(primary, List.of(switchableReplica), 50);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        RoutingContext.setForcePrimary(false);
+        RoutingContext.restoreReadOnly(null);
+        routingDataSource.close();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readsAndWritesGoToPrimaryByDefault() {
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void readOnlyMethodGoesToReplica() {
+        Boolean previous = RoutingContext.setReadOnly();
+        try {
+            assertEquals("replica", currentDatabase());
+        } finally {
+            RoutingContext.restoreReadOnly(previous);
+        }
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        transactionTemplate.setReadOnly(true);
+        assertEquals("replica", transactionTemplate.execute(status -> currentDatabase()));
+        transactionTemplate.setReadOnly(false);
+        assertEquals("primary", transactionTemplate.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void forcePrimaryOverridesReadOnly() {
+        RoutingContext.setForcePrimary(true);
+        Boolean previous = RoutingContext.setReadOnly();
+        try {
+            assertEquals("primary", currentDatabase());
+        } finally {
+            RoutingContext.restoreReadOnly(previous);
+        }
+    }
+
+    @Test
+    void unhealthyReplicaFallsBackToPrimary() throws InterruptedException {
+        replicaDown.set(true);
+        // 等健康检查（间隔 50ms）把从库摘掉
+        Thread.sleep(500);
+        Boolean previous = RoutingContext.setReadOnly();
+        try {
+            assertEquals("primary", currentDatabase());
+        } finally {
+            RoutingContext.restoreReadOnly(previous);
+        }
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM db_name", String.class);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + System.nanoTime())
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE db_name (name VARCHAR(20))");
+        new JdbcTemplate(database).update("INSERT INTO db_name VALUES (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,86 @@
+package top.mqxu.share.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import top.mqxu.share.util.JwtUtil;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesInterceptorTest {
+
+    private static final String TOKEN_A = JwtUtil.createToken(1L, "13800000001");
+    private static final String TOKEN_A_OTHER_LOGIN = JwtUtil.createToken(1L, "13900000001");
+    private static final String TOKEN_B = JwtUtil.createToken(2L, "13800000002");
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(3000);
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.setForcePrimary(false);
+    }
+
+    @Test
+    void writeRequestGoesToPrimary() {
+        MockHttpServletRequest request = request("POST", TOKEN_A);
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertTrue(RoutingContext.isForcePrimary());
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+        assertFalse(RoutingContext.isForcePrimary());
+    }
+
+    @Test
+    void readAfterWriteBySameCallerGoesToPrimary() {
+        complete(request("POST", TOKEN_A));
+
+        MockHttpServletRequest sameCaller = request("GET", TOKEN_A_OTHER_LOGIN);
+        interceptor.preHandle(sameCaller, new MockHttpServletResponse(), null);
+        assertTrue(RoutingContext.isForcePrimary());
+        interceptor.afterCompletion(sameCaller, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest otherCaller = request("GET", TOKEN_B);
+        interceptor.preHandle(otherCaller, new MockHttpServletResponse(), null);
+        assertFalse(RoutingContext.isForcePrimary());
+    }
+
+    @Test
+    void readWithoutTokenIsNotForcedToPrimary() {
+        MockHttpServletRequest request = request("GET", null);
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertFalse(RoutingContext.isForcePrimary());
+    }
+
+    @Test
+    void writeWithoutTokenDoesNotOpenWindowForSameAddress() {
+        // content-service 通过 Feign 调 user-service 不带 token，同一来源地址的其他请求不应被带到主库
+        complete(request("POST", null));
+
+        MockHttpServletRequest read = request("GET", null);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        assertFalse(RoutingContext.isForcePrimary());
+    }
+
+    @Test
+    void invalidTokenIsTreatedAsTokenless() {
+        complete(request("POST", "not-a-jwt"));
+
+        MockHttpServletRequest read = request("GET", "not-a-jwt");
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        assertFalse(RoutingContext.isForcePrimary());
+    }
+
+    private void complete(MockHttpServletRequest request) {
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+
+    private static MockHttpServletRequest request(String method, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/user/1");
+        if (token != null) {
+            request.addHeader("token", token);
+        }
+        return request;
+    }
+}
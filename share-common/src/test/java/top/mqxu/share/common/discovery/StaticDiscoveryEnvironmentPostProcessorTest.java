@@ -0,0 +1,35 @@
+package top.mqxu.share.common.discovery;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StaticDiscoveryEnvironmentPostProcessorTest {
+
+    private static final String DISCOVERY_ENABLED = "spring.cloud.nacos.discovery.enabled";
+
+    private static final String AUTO_REGISTRATION = "spring.cloud.service-registry.auto-registration.enabled";
+
+    private final StaticDiscoveryEnvironmentPostProcessor processor = new StaticDiscoveryEnvironmentPostProcessor();
+
+    @Test
+    void staticModeTurnsOffNacos() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("share.discovery.mode", "static")
+                .withProperty(DISCOVERY_ENABLED, "true");
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        assertEquals("false", environment.getProperty(DISCOVERY_ENABLED));
+        assertEquals("false", environment.getProperty(AUTO_REGISTRATION));
+    }
+
+    @Test
+    void untouchedInNacosMode() {
+        MockEnvironment environment = new MockEnvironment().withProperty("share.discovery.mode", "nacos");
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        assertNull(environment.getProperty(DISCOVERY_ENABLED));
+        assertNull(environment.getProperty(AUTO_REGISTRATION));
+    }
+}
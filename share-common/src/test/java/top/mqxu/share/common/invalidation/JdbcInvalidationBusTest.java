@@ -0,0 +1,102 @@
+package top.mqxu.share.common.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个总线共用一个内嵌 H2 事件库，分别代表 user-service 和 content-service 的实例
+ */
+class JdbcInvalidationBusTest {
+
+    private EmbeddedDatabase database;
+
+    private InvalidationBus userBus;
+
+    private InvalidationBus contentBus;
+
+    private final List<String> evicted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE cache_invalidation (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_type VARCHAR(50) NOT NULL, entity_id VARCHAR(64) NOT NULL, "
+                + "source VARCHAR(100) NOT NULL, create_time TIMESTAMP NOT NULL)");
+
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setTransport("jdbc");
+        properties.setCoalesceMs(10);
+        properties.setPollIntervalMs(20);
+        userBus = new InvalidationBus(new JdbcPollingInvalidationTransport(jdbcTemplate, properties), properties,
+                "user-service");
+        contentBus = new InvalidationBus(new JdbcPollingInvalidationTransport(jdbcTemplate, properties), properties,
+                "content-service");
+        contentBus.subscribe(EntityTypes.USER, event -> evicted.add(event.getId()));
+        // 第一次轮询只记下当前位置
+        Thread.sleep(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userBus.shutdown();
+        contentBus.shutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void userChangeReachesContentService() {
+        userBus.publish(EntityTypes.USER, 1L);
+        assertTrue(waitUntil(() -> evicted.contains("1")));
+    }
+
+    @Test
+    void laterChangeIsNotDroppedRegardlessOfClock() {
+        // 原来版本号取发布时间，同一毫秒内（或时钟偏差下）后一次变化会被当作旧事件丢掉
+        userBus.publish(EntityTypes.USER, 2L);
+        assertTrue(waitUntil(() -> evicted.size() == 1));
+        userBus.publish(EntityTypes.USER, 2L);
+        assertTrue(waitUntil(() -> evicted.size() == 2));
+        assertEquals(List.of("2", "2"), evicted);
+    }
+
+    @Test
+    void rereadEventsAreAppliedOnce() throws InterruptedException {
+        userBus.publish(EntityTypes.USER, 3L);
+        assertTrue(waitUntil(() -> evicted.contains("3")));
+        // 每次轮询都会往回多读一段，已经处理过的事件不会再淘汰一次
+        Thread.sleep(200);
+        assertEquals(List.of("3"), evicted);
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+}
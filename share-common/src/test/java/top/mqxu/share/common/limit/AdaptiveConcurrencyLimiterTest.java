@@ -0,0 +1,113 @@
+package top.mqxu.share.common.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应并发限制：用构造的延迟样本驱动上限的收缩和恢复，不发真实请求
+ * 每一轮先占满当前上限，再逐个以给定延迟释放，保证样本都在并发足够高时产生
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties());
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 10);
+        }
+        int healthy = limiter.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            round(limiter, 100);
+        }
+        int degraded = limiter.getLimit();
+        assertTrue(degraded < healthy / 2, "healthy=" + healthy + " degraded=" + degraded);
+
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 10);
+        }
+        int recovered = limiter.getLimit();
+        assertTrue(recovered > degraded * 2, "degraded=" + degraded + " recovered=" + recovered);
+    }
+
+    @Test
+    void errorsBackOffDownToMinLimit() {
+        LimiterProperties properties = properties();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        limiter.release(ms(10), true);
+        assertEquals((int) (properties.getInitialLimit() * properties.getBackoffRatio()), limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+            limiter.release(ms(10), true);
+        }
+        assertEquals(properties.getMinLimit(), limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        // 出错停止后，正常的样本让上限重新增长
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 10);
+        }
+        assertTrue(limiter.getLimit() > properties.getMinLimit(), "limit=" + limiter.getLimit());
+    }
+
+    @Test
+    void lowPriorityIsShedBeforeCritical() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties());
+        int limit = limiter.getLimit();
+
+        int low = acquireAll(limiter, RequestPriority.LOW);
+        assertEquals((int) (limit * RequestPriority.LOW.getShare()), low);
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+
+        // LOW 已经被拒绝时，NORMAL 和 CRITICAL 还有余量，CRITICAL 可以用满整个上限
+        int normal = acquireAll(limiter, RequestPriority.NORMAL);
+        assertEquals((int) (limit * RequestPriority.NORMAL.getShare()) - low, normal);
+        int critical = acquireAll(limiter, RequestPriority.CRITICAL);
+        assertEquals(limit - low - normal, critical);
+        assertEquals(limit, limiter.getInFlight());
+
+        // 释放一个名额后先到的 LOW 仍然拿不到，CRITICAL 可以
+        limiter.release(0, false);
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+    }
+
+    private static LimiterProperties properties() {
+        LimiterProperties properties = new LimiterProperties();
+        properties.setInitialLimit(50);
+        properties.setMinLimit(10);
+        properties.setMaxLimit(200);
+        return properties;
+    }
+
+    /**
+     * 占满当前上限，再逐个以 rttMillis 的延迟释放
+     */
+    private static void round(AdaptiveConcurrencyLimiter limiter, long rttMillis) {
+        int acquired = acquireAll(limiter, RequestPriority.CRITICAL);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(ms(rttMillis), false);
+        }
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter, RequestPriority priority) {
+        int acquired = 0;
+        while (limiter.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
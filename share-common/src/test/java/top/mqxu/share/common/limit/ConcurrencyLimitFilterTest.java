@@ -0,0 +1,67 @@
+package top.mqxu.share.common.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import top.mqxu.share.common.handler.ControllerExceptionHandler;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 并发限制过滤器对请求结果的判断：ControllerExceptionHandler 把系统异常转成 HTTP 200，靠请求属性识别为出错
+ */
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void handledServerErrorBacksOffLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new LimiterProperties());
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, Map.of(), new ObjectMapper(), null);
+        int initial = limiter.getLimit();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/share/list"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.setAttribute(ControllerExceptionHandler.SERVER_ERROR_ATTRIBUTE, Boolean.TRUE);
+            }
+        }));
+
+        assertEquals(200, response.getStatus());
+        assertEquals((int) (initial * new LimiterProperties().getBackoffRatio()), limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void successfulRequestDoesNotBackOff() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new LimiterProperties());
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, Map.of(), new ObjectMapper(), null);
+        int initial = limiter.getLimit();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/share/list"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(initial, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void handlerMarksOnlyServerErrors() throws Exception {
+        ControllerExceptionHandler handler = new ControllerExceptionHandler();
+
+        MockHttpServletRequest failed = new MockHttpServletRequest("GET", "/share/list");
+        handler.exceptionHandler(new IllegalStateException("db down"), failed);
+        assertNotNull(failed.getAttribute(ControllerExceptionHandler.SERVER_ERROR_ATTRIBUTE));
+
+        MockHttpServletRequest rejected = new MockHttpServletRequest("POST", "/share/exchange");
+        handler.exceptionHandler(new IllegalArgumentException("用户积分不够！"), rejected);
+        assertNull(rejected.getAttribute(ControllerExceptionHandler.SERVER_ERROR_ATTRIBUTE));
+    }
+}
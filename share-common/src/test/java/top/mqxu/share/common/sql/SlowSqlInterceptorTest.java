@@ -0,0 +1,118 @@
+package top.mqxu.share.common.sql;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowSqlInterceptorTest {
+
+    private final Configuration configuration = new Configuration();
+
+    private final SqlStatsRegistry registry = new SqlStatsRegistry();
+
+    private final SlowSqlInterceptor interceptor = new SlowSqlInterceptor(registry, 200,
+            List.of("password", "phone", "token"), List.of("audit_status"));
+
+    @Test
+    void wrapperParametersAreMaskedByColumn() {
+        // 条件构造器生成的参数名看不出列名，手机号要按 SQL 里的列名脱敏
+        List<Object> values = masked("SELECT id FROM user WHERE (phone = ? AND id > ?)",
+                "13800001111", 1L);
+        assertEquals(Arrays.asList("***", 1L), values);
+    }
+
+    @Test
+    void stringsOnlyPrintedForPlainColumns() {
+        List<Object> values = masked("SELECT id FROM share WHERE audit_status = ? AND title LIKE ?",
+                "PASS", "%秘密%");
+        assertEquals(Arrays.asList("PASS", "***"), values);
+    }
+
+    @Test
+    void inListAndInsertColumnsAreResolved() {
+        assertEquals(Arrays.asList("id", "id", "audit_status"),
+                PlaceholderColumns.resolve("SELECT * FROM share WHERE id IN (?, ?) AND s.`audit_status` = ?"));
+        assertEquals(Arrays.asList("phone", "password", "nickname", "bonus"),
+                PlaceholderColumns.resolve("INSERT INTO user (phone, password, nickname, bonus) VALUES (?, ?, ?, ?)"));
+        assertEquals(Arrays.asList("user_id", "share_id", "bonus"),
+                PlaceholderColumns.resolve("INSERT INTO t (user_id, share_id) VALUES (?, ?) ON DUPLICATE KEY UPDATE bonus = ?"));
+    }
+
+    @Test
+    void unresolvedStringIsMasked() {
+        List<Object> values = masked("SELECT id FROM user WHERE nickname = CONCAT(?, '%')", "张三");
+        assertEquals(List.of("***"), values);
+    }
+
+    @Test
+    void cursorQueriesAreRecordedOnClose() throws Exception {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            new JdbcTemplate(database).execute("CREATE TABLE bonus_event_log AS SELECT X AS id FROM SYSTEM_RANGE(1, 5)");
+            Configuration mybatis = new Configuration(new Environment("test", new JdbcTransactionFactory(), database));
+            mybatis.addMapper(StreamMapper.class);
+            mybatis.addInterceptor(interceptor);
+            SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(mybatis);
+
+            try (SqlSession session = factory.openSession();
+                 Cursor<Long> cursor = session.getMapper(StreamMapper.class).streamIds()) {
+                // 游标还没关闭时不记录
+                assertEquals(List.of(), registry.top("p99", 10));
+                cursor.forEach(id -> {
+                });
+            }
+
+            List<SqlStatementResp> stats = registry.top("p99", 10);
+            assertEquals(1, stats.size());
+            assertEquals(StreamMapper.class.getName() + ".streamIds", stats.get(0).getStatement());
+            assertEquals(1L, stats.get(0).getCount());
+            assertEquals(5L, stats.get(0).getRows());
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    interface StreamMapper {
+
+        @Select("SELECT id FROM bonus_event_log ORDER BY id")
+        Cursor<Long> streamIds();
+    }
+
+    private List<Object> masked(String sql, Object... params) {
+        List<ParameterMapping> mappings = new ArrayList<>();
+        Map<String, Object> parameterObject = new HashMap<>();
+        for (int i = 0; i < params.length; i++) {
+            String property = "ew.paramNameValuePairs.MPGENVAL" + (i + 1);
+            mappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+            parameterObject.put(property, params[i]);
+        }
+        BoundSql boundSql = new BoundSql(configuration, sql, mappings, parameterObject);
+        for (ParameterMapping mapping : mappings) {
+            boundSql.setAdditionalParameter(mapping.getProperty(), parameterObject.get(mapping.getProperty()));
+        }
+        return interceptor.maskedParameters(configuration, boundSql);
+    }
+}
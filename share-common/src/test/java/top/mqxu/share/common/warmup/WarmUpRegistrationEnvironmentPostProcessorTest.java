@@ -0,0 +1,36 @@
+package top.mqxu.share.common.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WarmUpRegistrationEnvironmentPostProcessorTest {
+
+    private static final String INSTANCE_ENABLED = "spring.cloud.nacos.discovery.instance-enabled";
+
+    private final WarmUpRegistrationEnvironmentPostProcessor processor = new WarmUpRegistrationEnvironmentPostProcessor();
+
+    @Test
+    void registersDisabledWhenWarmUpEnabled() {
+        MockEnvironment environment = new MockEnvironment();
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        assertEquals("false", environment.getProperty(INSTANCE_ENABLED));
+    }
+
+    @Test
+    void explicitConfigWins() {
+        MockEnvironment environment = new MockEnvironment().withProperty(INSTANCE_ENABLED, "true");
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        assertEquals("true", environment.getProperty(INSTANCE_ENABLED));
+    }
+
+    @Test
+    void untouchedWhenWarmUpDisabled() {
+        MockEnvironment environment = new MockEnvironment().withProperty("share.warm-up.enabled", "false");
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        assertNull(environment.getProperty(INSTANCE_ENABLED));
+    }
+}
@@ -0,0 +1,94 @@
+package top.mqxu.share.common.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WarmUpRunnerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retriesRegistryUntilUp() throws InterruptedException {
+        ServiceRegistry<Registration> registry = mock(ServiceRegistry.class);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("nacos unavailable");
+            }
+            return null;
+        }).when(registry).setStatus(any(), eq("UP"));
+        WarmUpRunner runner = runner(registry, new MockEnvironment());
+        HealthIndicator health = new WarmUpHealthConfig().warmUpHealthIndicator(runner);
+
+        runner.onReadiness(readyEvent());
+
+        // 预热已经结束，但注册中心里还是不可用，就绪探针继续失败
+        assertTrue(runner.isFinished());
+        assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+        assertEquals("java.lang.IllegalStateException: nacos unavailable",
+                health.health().getDetails().get("registry"));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!runner.isRegistryUp() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(runner.isRegistryUp());
+        assertEquals(3, calls.get());
+        assertEquals(Status.UP, health.health().getStatus());
+        runner.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void notRegisteredCountsAsUp() {
+        ServiceRegistry<Registration> registry = mock(ServiceRegistry.class);
+        WarmUpRunner runner = runner(registry, new MockEnvironment()
+                .withProperty("spring.cloud.service-registry.auto-registration.enabled", "false"));
+
+        runner.onReadiness(readyEvent());
+
+        assertTrue(runner.isRegistryUp());
+        assertEquals(Status.UP, new WarmUpHealthConfig().warmUpHealthIndicator(runner).health().getStatus());
+        verify(registry, never()).setStatus(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private WarmUpRunner runner(ServiceRegistry<Registration> registry, MockEnvironment environment) {
+        ObjectProvider<ServiceRegistry<Registration>> registryProvider = mock(ObjectProvider.class);
+        when(registryProvider.getIfAvailable()).thenReturn(registry);
+        ObjectProvider<Registration> registrationProvider = mock(ObjectProvider.class);
+        when(registrationProvider.getIfAvailable()).thenReturn(mock(Registration.class));
+
+        WarmUpRunner runner = new WarmUpRunner();
+        ReflectionTestUtils.setField(runner, "serviceRegistry", registryProvider);
+        ReflectionTestUtils.setField(runner, "registration", registrationProvider);
+        ReflectionTestUtils.setField(runner, "environment", environment);
+        ReflectionTestUtils.setField(runner, "enabled", false);
+        ReflectionTestUtils.setField(runner, "registryRetryMs", 10L);
+        ReflectionTestUtils.setField(runner, "registryRetryMaxMs", 40L);
+        return runner;
+    }
+
+    private AvailabilityChangeEvent<ReadinessState> readyEvent() {
+        return new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+}
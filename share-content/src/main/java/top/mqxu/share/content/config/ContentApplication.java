@@ -7,12 +7,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan("top.mqxu")
 @MapperScan("top.mqxu.share.*.mapper")
 @Slf4j
 @EnableFeignClients(basePackages={"top.mqxu"})
+@EnableScheduling
 public class ContentApplication {
     public static void main(String[] args) {
         SpringApplication app = new SpringApplication(ContentApplication.class);
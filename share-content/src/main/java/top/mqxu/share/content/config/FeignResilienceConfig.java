@@ -0,0 +1,47 @@
+package top.mqxu.share.content.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feign 熔断器配置：熔断器、bulkhead 的参数在 application.yml 的 resilience4j 节点下，
+ * 这里只负责把熔断器的状态变化记录到日志和 metrics（feign.circuitbreaker.transitions）
+ */
+@Slf4j
+@Configuration
+public class FeignResilienceConfig {
+
+    @Bean
+    public RegistryEventConsumer<CircuitBreaker> circuitBreakerTransitionConsumer(MeterRegistry meterRegistry) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<CircuitBreaker> entryAddedEvent) {
+                CircuitBreaker circuitBreaker = entryAddedEvent.getAddedEntry();
+                circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                    CircuitBreaker.StateTransition transition = event.getStateTransition();
+                    log.warn("熔断器状态变化：{}，{} -> {}", event.getCircuitBreakerName(),
+                            transition.getFromState(), transition.getToState());
+                    meterRegistry.counter("feign.circuitbreaker.transitions",
+                            "name", event.getCircuitBreakerName(),
+                            "from", transition.getFromState().name(),
+                            "to", transition.getToState().name()).increment();
+                });
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<CircuitBreaker> entryRemoveEvent) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<CircuitBreaker> entryReplacedEvent) {
+            }
+        };
+    }
+}
@@ -3,8 +3,14 @@ package top.mqxu.share.content.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.mqxu.share.common.sql.SlowSqlInterceptor;
+import top.mqxu.share.common.sql.SqlStatsRegistry;
+import top.mqxu.share.common.trace.TraceSqlInterceptor;
+
+import java.util.List;
 
 @Configuration
 public class MyBatisPlusConfig {
@@ -14,4 +20,23 @@ public class MyBatisPlusConfig {
         interceptor.addInnerInterceptor (new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
+
+    /**
+     * 统计每个请求的 SQL 执行耗时
+     */
+    @Bean
+    public TraceSqlInterceptor traceSqlInterceptor() {
+        return new TraceSqlInterceptor();
+    }
+
+    /**
+     * 按语句统计耗时和行数，超过 share.slow-sql.threshold-ms 的语句打印脱敏后的参数
+     */
+    @Bean
+    public SlowSqlInterceptor slowSqlInterceptor(SqlStatsRegistry sqlStatsRegistry,
+                                                 @Value("${share.slow-sql.threshold-ms:200}") long thresholdMs,
+                                                 @Value("${share.slow-sql.mask-keywords:password,phone,token}") List<String> maskKeywords,
+                                                 @Value("${share.slow-sql.plain-columns:audit_status}") List<String> plainColumns) {
+        return new SlowSqlInterceptor(sqlStatsRegistry, thresholdMs, maskKeywords, plainColumns);
+    }
 }
@@ -3,24 +3,63 @@ package top.mqxu.share.content.controller;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import top.mqxu.share.common.auth.AdminGuard;
 import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.common.resp.CursorPageResp;
+import top.mqxu.share.content.domain.dto.ShareAuditDTO;
 import top.mqxu.share.content.domain.entity.Share;
 import top.mqxu.share.content.service.ShareService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/share/admin")
 @Slf4j
 @AllArgsConstructor
 public class ShareAdminController {
     private final ShareService shareService;
+
+    /**
+     * 只有管理员能审核
+     */
+    private final AdminGuard adminGuard;
+
+    /**
+     * 每页最多的条数
+     */
+    private static final int MAX = 100;
+
+    /**
+     * 单次批量审核最多的条数
+     */
+    private static final int MAX_AUDIT = 500;
+
     @GetMapping("/list")
-    public CommonResp<List<Share>> getSharesNotYet() {
-        CommonResp<List<Share>> resp=new CommonResp<>();
-        resp.setData(shareService.queryShareNotYet());
+    public CommonResp<CursorPageResp<Share>> getSharesNotYet(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer pageSize,
+            @RequestHeader(value = "token", required = false) String token) {
+        adminGuard.requireAdmin(token);
+        // 控制 pageSize 在 [1, MAX] 之间
+        pageSize = Math.max(1, Math.min(pageSize, MAX));
+        CommonResp<CursorPageResp<Share>> resp = new CommonResp<>();
+        resp.setData(shareService.queryShareNotYet(cursor, pageSize));
+        return resp;
+    }
+
+    @PutMapping("/audit")
+    public CommonResp<Integer> audit(@RequestBody ShareAuditDTO shareAuditDTO,
+                                     @RequestHeader(value = "token", required = false) String token) {
+        adminGuard.requireAdmin(token);
+        if (shareAuditDTO.getIds() != null && shareAuditDTO.getIds().size() > MAX_AUDIT) {
+            throw new IllegalArgumentException("单次最多审核 " + MAX_AUDIT + " 条！");
+        }
+        CommonResp<Integer> resp = new CommonResp<>();
+        resp.setData(shareService.audit(shareAuditDTO));
         return resp;
     }
 }
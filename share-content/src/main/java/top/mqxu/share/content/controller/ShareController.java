@@ -5,18 +5,28 @@ import cn.hutool.json.JSONObject;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import top.mqxu.share.common.resp.CommonResp;
 import top.mqxu.share.content.domain.dto.ExchangeDTO;
 import top.mqxu.share.content.domain.dto.ShareRequestDTO;
 import top.mqxu.share.content.domain.entity.Notice;
 
 import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.resp.HotShareResp;
+import top.mqxu.share.content.domain.resp.ShareImportResp;
+import top.mqxu.share.content.domain.resp.ShareListItem;
 import top.mqxu.share.content.domain.resp.ShareResp;
+import top.mqxu.share.content.service.HotShareService;
 import top.mqxu.share.content.service.NoticeService;
+import top.mqxu.share.content.service.NoticeStreamService;
+import top.mqxu.share.content.service.ShareImportService;
 import top.mqxu.share.content.service.ShareService;
 import top.mqxu.share.util.JwtUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -27,12 +37,29 @@ public class ShareController {
     @Resource
     private NoticeService noticeService;
 
+    @Resource
+    private NoticeStreamService noticeStreamService;
+
     @Resource
     private ShareService shareService;
 
+    @Resource
+    private HotShareService hotShareService;
+
+    @Resource
+    private ShareImportService shareImportService;
+
     // 定义每页最多的数据条数，以防前端传递超大参数，造成页面数据量过大
     private final int MAX = 50;
 
+    /**
+     * 列表摘要的最大长度
+     */
+    private final int MAX_SUMMARY_LENGTH = 500;
+
+    // 批量投稿一次最多的条数，更多的数据请用 NDJSON 流式导入
+    private final int MAX_BATCH = 5000;
+
     @GetMapping("/notice")
     public CommonResp<Notice> getLatestNotice() {
         CommonResp<Notice> commonResp = new CommonResp<>();
@@ -40,21 +67,53 @@ public class ShareController {
         return commonResp;
     }
 
+    /**
+     * 公告推送（SSE）：连接后先推当前公告，之后公告变化时推送，定时发送心跳；
+     * 重连时浏览器自动带上 Last-Event-ID，公告没变就不重复推送
+     */
+    @GetMapping(value = "/notice/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotice(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return noticeStreamService.subscribe(lastEventId);
+    }
+
+    /**
+     * 分享列表
+     *
+     * @param summaryLength 摘要最大长度，限制在 [0, MAX_SUMMARY_LENGTH] 之间，0 表示不截断
+     */
     @GetMapping("/list")
-    public CommonResp<List<Share>> getShareList(
+    public CommonResp<List<ShareListItem>> getShareList(
             @RequestParam(required = false) String title,
             @RequestParam(required = false, defaultValue = "1") Integer pageNo,
             @RequestParam(required = false, defaultValue = "3") Integer pageSize,
+            @RequestParam(required = false, defaultValue = "100") Integer summaryLength,
             @RequestHeader(value = "token", required = false) String token) {
 
-        // 控制 pageSize 最大值
-        if (pageSize > MAX) {
-            pageSize = MAX;
-        }
+        // 控制 pageSize 在 [1, MAX] 之间，summaryLength 在 [0, MAX_SUMMARY_LENGTH] 之间
+        pageSize = Math.max(1, Math.min(pageSize, MAX));
+        summaryLength = Math.max(0, Math.min(summaryLength, MAX_SUMMARY_LENGTH));
 
         Long userId = getUserIdFromToken(token);
-        CommonResp<List<Share>> commonResp = new CommonResp<>();
-        commonResp.setData(shareService.getList(title, pageNo, pageSize, userId));
+        CommonResp<List<ShareListItem>> commonResp = new CommonResp<>();
+        commonResp.setData(shareService.getList(title, pageNo, pageSize, userId, summaryLength));
+        return commonResp;
+    }
+
+    /**
+     * 热门分享，排名和展示信息都来自内存，不查询数据库
+     *
+     * @param window 时间窗口：1h、24h、7d
+     * @param limit  条数
+     * @return 热门分享列表
+     */
+    @GetMapping("/hot")
+    public CommonResp<List<HotShareResp>> getHotShares(
+            @RequestParam(required = false, defaultValue = "24h") String window,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        // 控制 limit 在 [1, MAX] 之间，SlidingTopK 的容量不能小于 1
+        limit = Math.max(1, Math.min(limit, MAX));
+        CommonResp<List<HotShareResp>> commonResp = new CommonResp<>();
+        commonResp.setData(hotShareService.getHot(window, limit));
         return commonResp;
     }
 
@@ -109,17 +168,41 @@ public class ShareController {
     return resp;
     }
 
+    @PostMapping("/contribute/batch")
+    public CommonResp<ShareImportResp> contributeBatch(@RequestBody List<ShareRequestDTO> shareRequestDTOList,
+                                                       @RequestHeader(value = "token", required = false) String token) {
+        if (shareRequestDTOList.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("单次最多投稿 " + MAX_BATCH + " 条，请使用导入接口！");
+        }
+        Long userId = getUserIdFromToken(token);
+        CommonResp<ShareImportResp> resp = new CommonResp<>();
+        resp.setData(shareImportService.contributeBatch(shareRequestDTOList, userId));
+        return resp;
+    }
+
+    /**
+     * NDJSON 流式导入，请求体每行一个投稿参数
+     */
+    @PostMapping(value = "/contribute/import", consumes = "application/x-ndjson")
+    public CommonResp<ShareImportResp> importShares(InputStream in,
+                                                    @RequestHeader(value = "token", required = false) String token) throws IOException {
+        Long userId = getUserIdFromToken(token);
+        CommonResp<ShareImportResp> resp = new CommonResp<>();
+        resp.setData(shareImportService.importNdjson(in, userId));
+        return resp;
+    }
+
     @GetMapping("/myContribute")
-    public CommonResp<List<Share>> myContribute(
+    public CommonResp<List<ShareListItem>> myContribute(
             @RequestParam(required=false,defaultValue="1") Integer pageNo,
             @RequestParam(required=false,defaultValue="3") Integer pageSize,
+            @RequestParam(required = false, defaultValue = "100") Integer summaryLength,
             @RequestHeader(value="token",required=false)String token) {
-        if (pageSize > MAX) {
-            pageSize = MAX;
-        }
+        pageSize = Math.max(1, Math.min(pageSize, MAX));
+        summaryLength = Math.max(0, Math.min(summaryLength, MAX_SUMMARY_LENGTH));
         Long userId = getUserIdFromToken(token);
-        CommonResp<List<Share>> resp = new CommonResp<>();
-        resp.setData(shareService.myContribute(pageNo, pageSize, userId));
+        CommonResp<List<ShareListItem>> resp = new CommonResp<>();
+        resp.setData(shareService.myContribute(pageNo, pageSize, userId, summaryLength));
         return resp;
     }
 
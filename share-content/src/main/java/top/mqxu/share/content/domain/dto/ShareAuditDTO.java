@@ -0,0 +1,34 @@
+package top.mqxu.share.content.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShareAuditDTO {
+    /**
+     * 要审核的分享内容 id
+     */
+    private List<Long> ids;
+
+    /**
+     * 审核结果：PASS、REJECT
+     */
+    private String auditStatus;
+
+    /**
+     * 审核原因
+     */
+    private String reason;
+
+    /**
+     * 审核通过后是否显示，默认显示
+     */
+    private Boolean showFlag;
+}
@@ -0,0 +1,23 @@
+package top.mqxu.share.content.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量审核事件，由 ShareService.audit 发布，缓存、搜索索引据此增量刷新
+ */
+@Data
+@AllArgsConstructor
+public class ShareAuditedEvent {
+    /**
+     * 被审核的分享内容 id
+     */
+    private List<Long> shareIds;
+
+    /**
+     * 审核结果：PASS、REJECT
+     */
+    private String auditStatus;
+}
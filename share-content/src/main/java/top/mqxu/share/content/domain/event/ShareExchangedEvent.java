@@ -0,0 +1,22 @@
+package top.mqxu.share.content.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import top.mqxu.share.content.domain.entity.Share;
+
+/**
+ * 兑换成功事件，由 ShareService.exchange 发布
+ */
+@Data
+@AllArgsConstructor
+public class ShareExchangedEvent {
+    /**
+     * 被兑换的分享内容
+     */
+    private Share share;
+
+    /**
+     * 兑换的用户 id
+     */
+    private Long userId;
+}
@@ -0,0 +1,23 @@
+package top.mqxu.share.content.domain.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HotShareResp {
+    private Long shareId;
+    private String title;
+    private String author;
+    private String cover;
+    private Integer price;
+
+    /**
+     * 窗口内的兑换次数
+     */
+    private Long count;
+}
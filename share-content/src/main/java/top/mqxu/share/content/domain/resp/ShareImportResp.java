@@ -0,0 +1,36 @@
+package top.mqxu.share.content.domain.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShareImportResp {
+    /**
+     * 总行数
+     */
+    private int total;
+
+    /**
+     * 导入成功的行数
+     */
+    private int success;
+
+    /**
+     * 导入失败的行数
+     */
+    private int failed;
+
+    /**
+     * 失败原因，格式为“第 n 行：原因”，最多保留前 100 条
+     */
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+}
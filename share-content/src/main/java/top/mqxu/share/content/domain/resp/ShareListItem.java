@@ -0,0 +1,47 @@
+package top.mqxu.share.content.domain.resp;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 列表页的分享内容，只包含列表需要展示的字段
+ * reason、时间等详情字段通过 /share/{id} 查询
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShareListItem {
+    private Long id;
+    private Long userId;
+    private String title;
+    private Boolean isOriginal;
+    private String author;
+    private String cover;
+
+    /**
+     * 摘要，可能被截断
+     */
+    private String summary;
+    private Integer price;
+
+    /**
+     * 下载地址，未兑换时为空
+     */
+    private String downloadUrl;
+    private Integer buyCount;
+
+    /**
+     * 审核状态，只在“我的投稿”中返回
+     */
+    private String auditStatus;
+
+    /**
+     * 是否显示，只在“我的投稿”中返回
+     */
+    private Boolean showFlag;
+}
@@ -0,0 +1,208 @@
+package top.mqxu.share.content.feign;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.trace.TraceContext;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicy;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicyRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 幂等 Feign 调用的对冲：调用超过最近延迟的 p95 还没返回时再发一次，用先拿到的可用结果。
+ * 两次调用都经过负载均衡，第一次调用还在进行中，延迟感知的负载均衡会把第二次调用优先分给别的实例。
+ * 调用在 feign-hedge 线程上执行，带上 MDC（trace id 随之传给下游）；线程用满时不对冲，直接在当前线程调用。
+ * 没抢到的调用不会被中断，由 Feign 的读超时结束
+ */
+@Slf4j
+@Component
+public class HedgedCaller {
+
+    @Resource
+    private HedgePolicyRegistry hedgePolicyRegistry;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<String> meteredNames = ConcurrentHashMap.newKeySet();
+
+    public HedgedCaller(@Value("${share.hedging.feign-threads:32}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "feign-hedge-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param name   对冲策略名，每个名字单独统计延迟和预算
+     * @param call   幂等的调用
+     * @param usable 结果是否可用，不可用的结果（如降级数据）只在两次调用都不可用时返回
+     * @return 先返回的可用结果
+     */
+    public <T> T call(String name, Supplier<T> call, Predicate<T> usable) {
+        if (!hedgePolicyRegistry.isEnabled()) {
+            return call.get();
+        }
+        HedgePolicy policy = policy(name);
+        policy.onRequest();
+        long start = System.nanoTime();
+        CompletableFuture<T> primary = submit(call);
+        if (primary == null) {
+            return call.get();
+        }
+        Duration delay = policy.delay();
+        try {
+            T result = await(primary, delay.toNanos());
+            if (result != null || primary.isDone()) {
+                return finish(policy, start, result, usable, false);
+            }
+            CompletableFuture<T> hedge = policy.tryHedge() ? submit(call) : null;
+            if (hedge == null) {
+                return finish(policy, start, await(primary, -1), usable, false);
+            }
+            log.debug("对冲调用：{} 超过 {}ms 未返回，再调用一次", name, delay.toMillis());
+            Outcome<T> outcome = firstUsable(primary, hedge, usable).get();
+            return finish(policy, start, outcome.value(), usable, outcome.hedge());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("调用被中断", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            TraceContext.record(TraceFeignConfig.STAGE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 等待调用结果，timeoutNanos 小于 0 时一直等；超时返回 null（调用本身不会返回 null）
+     */
+    private static <T> T await(CompletableFuture<T> future, long timeoutNanos)
+            throws InterruptedException, ExecutionException {
+        if (timeoutNanos < 0) {
+            return future.get();
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 先完成且可用的结果；都不可用时返回主调用的结果，主调用失败则返回对冲调用的结果
+     */
+    private static <T> CompletableFuture<Outcome<T>> firstUsable(CompletableFuture<T> primary,
+                                                                 CompletableFuture<T> hedge, Predicate<T> usable) {
+        CompletableFuture<Outcome<T>> first = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        Runnable fallback = () -> {
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+            if (!primary.isCompletedExceptionally()) {
+                first.complete(new Outcome<>(primary.join(), false));
+            } else if (!hedge.isCompletedExceptionally()) {
+                first.complete(new Outcome<>(hedge.join(), true));
+            } else {
+                primary.whenComplete((v, e) -> first.completeExceptionally(e));
+            }
+        };
+        primary.whenComplete((value, error) -> {
+            if (error == null && usable.test(value)) {
+                first.complete(new Outcome<>(value, false));
+            }
+            fallback.run();
+        });
+        hedge.whenComplete((value, error) -> {
+            if (error == null && usable.test(value)) {
+                first.complete(new Outcome<>(value, true));
+            }
+            fallback.run();
+        });
+        return first;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                try {
+                    future.complete(call.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        return future;
+    }
+
+    private static <T> T finish(HedgePolicy policy, long start, T result, Predicate<T> usable, boolean hedgeWon) {
+        if (usable.test(result)) {
+            policy.record(System.nanoTime() - start, hedgeWon);
+        }
+        return result;
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private HedgePolicy policy(String name) {
+        HedgePolicy policy = hedgePolicyRegistry.get(name);
+        if (meteredNames.add(name)) {
+            FunctionCounter.builder("feign.hedge.sent", policy, HedgePolicy::getHedged)
+                    .tag("name", name).register(meterRegistry);
+            FunctionCounter.builder("feign.hedge.won", policy, HedgePolicy::getHedgeWon)
+                    .tag("name", name).register(meterRegistry);
+            FunctionCounter.builder("feign.hedge.budget-exhausted", policy, HedgePolicy::getBudgetExhausted)
+                    .tag("name", name).register(meterRegistry);
+        }
+        return policy;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Outcome<T>(T value, boolean hedge) {
+    }
+}
@@ -0,0 +1,38 @@
+package top.mqxu.share.content.feign;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.auth.AdminGuard;
+import top.mqxu.share.common.exception.BusinessException;
+import top.mqxu.share.common.exception.BusinessExceptionEnum;
+import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.content.domain.entity.User;
+import top.mqxu.share.util.JwtUtil;
+import top.mqxu.share.util.RoleUtil;
+
+/**
+ * content-service 的管理员检查：角色从 user-service 实时查询，user-service 不可用时拒绝（降级的缓存数据不用来授权）
+ */
+@Slf4j
+@Component
+public class RemoteAdminGuard implements AdminGuard {
+
+    @Resource
+    private UserService userService;
+
+    @Override
+    public void requireAdmin(String token) {
+        Long userId = JwtUtil.getUserId(token);
+        if (userId == null) {
+            throw BusinessException.of(BusinessExceptionEnum.NO_PERMISSION);
+        }
+        CommonResp<User> commonResp = userService.getUser(userId);
+        User user = commonResp.getData();
+        if (UserServiceFallbackFactory.FALLBACK_MESSAGE.equals(commonResp.getMessage())
+                || user == null || !RoleUtil.isAdmin(user.getRoles())) {
+            log.warn("非管理员调用管理接口，userId：{}", userId);
+            throw BusinessException.of(BusinessExceptionEnum.NO_PERMISSION);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package top.mqxu.share.content.feign;
+
+import feign.Capability;
+import feign.Client;
+import feign.RequestInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import top.mqxu.share.common.trace.TraceContext;
+
+/**
+ * Feign 调用带上当前的 trace id，并把调用耗时记到当前请求的 feign 阶段
+ */
+@Configuration
+public class TraceFeignConfig {
+
+    public static final String STAGE = "feign";
+
+    @Bean
+    public RequestInterceptor traceRequestInterceptor() {
+        return template -> {
+            String traceId = TraceContext.traceId();
+            if (traceId != null) {
+                template.header(TraceContext.HEADER, traceId);
+            }
+        };
+    }
+
+    @Bean
+    public Capability traceCapability() {
+        return new TraceCapability();
+    }
+
+    /**
+     * Feign 通过反射调用 enrich，必须是 public 类，不能用匿名类
+     */
+    public static class TraceCapability implements Capability {
+        @Override
+        public Client enrich(Client client) {
+            return (request, options) -> {
+                long start = System.nanoTime();
+                try {
+                    return client.execute(request, options);
+                } finally {
+                    TraceContext.record(STAGE, System.nanoTime() - start);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package top.mqxu.share.content.feign;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.content.domain.entity.User;
+
+/**
+ * 用户资料的本地缓存，保存最近一次从 user-service 成功拿到的用户信息，
+ * user-service 熔断或超时时由 {@link UserServiceFallbackFactory} 用来降级
+ */
+@Component
+public class UserProfileCache {
+
+    private final LRUCache<Long, User> cache;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
+    public UserProfileCache(@Value("${share.feign.user-cache.capacity:10000}") int capacity,
+                            @Value("${share.feign.user-cache.ttl-ms:86400000}") long ttlMs) {
+        this.cache = CacheUtil.newLRUCache(capacity, ttlMs);
+    }
+
+    /**
+     * 用户资料变化（如积分修改）后丢掉缓存，传输方式能到达 user-service 的事件时生效
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        invalidationBus.subscribe(EntityTypes.USER, event -> cache.remove(Long.valueOf(event.getId())));
+    }
+
+    public void put(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        cache.put(user.getId(), user);
+    }
+
+    public User get(Long userId) {
+        return userId == null ? null : cache.get(userId, false);
+    }
+}
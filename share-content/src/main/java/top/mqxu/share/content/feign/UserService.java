@@ -10,11 +10,17 @@ import top.mqxu.share.common.resp.CommonResp;
 import top.mqxu.share.content.domain.dto.UserAddBonusMsgDTO;
 import top.mqxu.share.content.domain.entity.User;
 
-@FeignClient(value = "user-service",path = "/user")
+@FeignClient(value = "user-service", path = "/user", fallbackFactory = UserServiceFallbackFactory.class)
 public interface UserService {
     @GetMapping("/{id}")
     CommonResp<User> getUser(@PathVariable Long id);
 
+    /**
+     * 从 user-service 的主库查询用户，兑换前检查积分用，不会读到从库的旧积分
+     */
+    @GetMapping("/{id}/primary")
+    CommonResp<User> getUserFromPrimary(@PathVariable Long id);
+
     @PostMapping("/updateBonus")
     CommonResp<User> updateBonus(@RequestBody UserAddBonusMsgDTO userAddBonusMsgDTO);
 }
@@ -0,0 +1,60 @@
+package top.mqxu.share.content.feign;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.content.domain.dto.UserAddBonusMsgDTO;
+import top.mqxu.share.content.domain.entity.User;
+
+/**
+ * user-service 熔断、限流（bulkhead 已满）或超时后的降级逻辑
+ * 读接口返回本地缓存的最后一份用户资料，写接口直接失败
+ */
+@Slf4j
+@Component
+public class UserServiceFallbackFactory implements FallbackFactory<UserService> {
+
+    /**
+     * 降级响应的 message，调用方据此判断数据是否来自缓存
+     */
+    public static final String FALLBACK_MESSAGE = "FALLBACK";
+
+    @Resource
+    private UserProfileCache userProfileCache;
+
+    @Override
+    public UserService create(Throwable cause) {
+        return new UserService() {
+            @Override
+            public CommonResp<User> getUser(Long id) {
+                log.warn("user-service 调用失败，使用缓存降级，userId：{}，原因：{}", id, cause.toString());
+                CommonResp<User> resp = new CommonResp<>();
+                resp.setMessage(FALLBACK_MESSAGE);
+                User user = userProfileCache.get(id);
+                if (user == null) {
+                    resp.setSuccess(false);
+                }
+                resp.setData(user);
+                return resp;
+            }
+
+            @Override
+            public CommonResp<User> getUserFromPrimary(Long id) {
+                // 兑换要用实时积分，缓存数据不能代替
+                log.warn("user-service 调用失败，主库查询不降级，userId：{}，原因：{}", id, cause.toString());
+                CommonResp<User> resp = new CommonResp<>();
+                resp.setSuccess(false);
+                resp.setMessage(FALLBACK_MESSAGE);
+                return resp;
+            }
+
+            @Override
+            public CommonResp<User> updateBonus(UserAddBonusMsgDTO userAddBonusMsgDTO) {
+                log.error("user-service 调用失败，积分修改不降级，userId：{}", userAddBonusMsgDTO.getUserId(), cause);
+                throw new IllegalStateException("用户服务暂不可用，请稍后再试！", cause);
+            }
+        };
+    }
+}
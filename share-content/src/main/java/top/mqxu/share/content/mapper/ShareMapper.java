@@ -1,7 +1,25 @@
 package top.mqxu.share.content.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 import top.mqxu.share.content.domain.entity.Share;
 
+import java.util.Map;
+
 public interface ShareMapper extends BaseMapper<Share> {
+
+    /**
+     * 批量累加兑换次数，一条 UPDATE ... CASE 语句更新多行
+     *
+     * @param deltas shareId -> 增量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE share SET buy_count = buy_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrBuyCount(@Param("deltas") Map<Long, Long> deltas);
 }
@@ -0,0 +1,152 @@
+package top.mqxu.share.content.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分享内容的兑换次数（buy_count）计数器
+ * 兑换时只在内存里的 LongAdder 上累加，定时批量刷到数据库，避免热门分享那一行成为锁热点
+ */
+@Slf4j
+@Service
+public class BuyCountService {
+
+    @Resource
+    private ShareMapper shareMapper;
+
+    /**
+     * 每条 UPDATE 最多更新的行数
+     */
+    @Value("${share.buy-count.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 还没刷到数据库的增量，key 为 shareId
+     * 一整个刷新周期都没有兑换的条目会被摘掉，只保留最近有兑换的分享内容
+     */
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已经从 pending 取出、等待写数据库的增量，读的时候也要算上；每批在 UPDATE 之前移出
+     */
+    private final ConcurrentHashMap<Long, Long> flushing = new ConcurrentHashMap<>();
+
+    /**
+     * 上一轮从 pending 摘掉的计数器：摘掉之前已经拿到引用的兑换可能还会累加在上面，下一轮再取一次
+     * 只在 flush 里访问
+     */
+    private Map<Long, LongAdder> retired = new HashMap<>();
+
+    /**
+     * 兑换成功后调用，兑换次数 +1
+     *
+     * @param shareId 分享内容 id
+     */
+    public void increment(Long shareId) {
+        pending.computeIfAbsent(shareId, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * 数据库里的 buyCount 加上还没刷到数据库的增量
+     *
+     * @param share 从数据库查出来的分享内容
+     */
+    public void merge(Share share) {
+        if (share == null || share.getId() == null) {
+            return;
+        }
+        long delta = unflushed(share.getId());
+        if (delta != 0) {
+            int dbValue = share.getBuyCount() == null ? 0 : share.getBuyCount();
+            share.setBuyCount((int) (dbValue + delta));
+        }
+    }
+
+    private long unflushed(Long shareId) {
+        LongAdder adder = pending.get(shareId);
+        Long inFlight = flushing.get(shareId);
+        return (adder == null ? 0 : adder.sum()) + (inFlight == null ? 0 : inFlight);
+    }
+
+    /**
+     * 定时把增量批量写入数据库，写失败的增量放回计数器，下次再刷
+     */
+    @Scheduled(fixedDelayString = "${share.buy-count.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, LongAdder> lastRetired = retired;
+        retired = new HashMap<>();
+        lastRetired.forEach((shareId, adder) -> addFlushing(shareId, adder.sumThenReset()));
+
+        // sumThenReset 逐个 cell 原子清零，并发的累加要么被这次取走，要么留在计数器里
+        pending.forEach((shareId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                addFlushing(shareId, delta);
+            } else if (pending.remove(shareId, adder)) {
+                retired.put(shareId, adder);
+            }
+        });
+        if (flushing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> batch = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : flushing.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= batchSize) {
+                flushBatch(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushBatch(batch);
+        }
+    }
+
+    private void addFlushing(Long shareId, long delta) {
+        if (delta != 0) {
+            flushing.merge(shareId, delta, Long::sum);
+        }
+    }
+
+    /**
+     * 写之前先把这一批移出 flushing：UPDATE 提交后读到的数据库值已经包含这批增量，不能再加一次。
+     * 写的过程中读到的值会暂时少这一批，写失败时放回计数器
+     */
+    private void flushBatch(Map<Long, Long> batch) {
+        batch.keySet().forEach(flushing::remove);
+        try {
+            shareMapper.incrBuyCount(batch);
+        } catch (Exception e) {
+            log.error("兑换次数刷新失败，{} 条增量放回计数器", batch.size(), e);
+            batch.forEach((shareId, delta) -> pending.computeIfAbsent(shareId, k -> new LongAdder()).add(delta));
+        }
+    }
+
+    /**
+     * 停机前把剩余的增量全部写入，写不进去的打印出来以便人工对账
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        // 再刷一次，取走上一轮摘掉的计数器上晚到的累加
+        flush();
+        pending.forEach((shareId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                log.error("停机时兑换次数未能写入数据库，shareId：{}，增量：{}", shareId, delta);
+            }
+        });
+    }
+}
@@ -0,0 +1,213 @@
+package top.mqxu.share.content.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.content.domain.entity.MidUserShare;
+import top.mqxu.share.content.mapper.MidUserShareMapper;
+import top.mqxu.share.content.util.LongIdSet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 用户已兑换的分享内容（mid_user_share）的内存缓存
+ * 每个活跃用户一个有序 id 集合，首次访问时一条 SQL 加载，兑换时更新，超过内存预算按 LRU 淘汰。
+ * 缓存按用户分成 SEGMENTS 段，每段各自加锁、各自按 LRU 淘汰，读列表时不会所有请求抢同一把锁。
+ * 兑换后通过 {@link InvalidationBus} 发布 entitlement 事件（id 为 userId:shareId），其它实例收到后把这条兑换加进缓存；
+ * 事件丢失或加载时读到了延迟的从库时，条目最多在 ttl-ms 后重新加载。
+ * 所以“没有兑换过”只能用来隐藏下载地址，兑换时以 mid_user_share 的唯一键为准
+ */
+@Slf4j
+@Service
+public class EntitlementService {
+
+    private static final int STRIPES = 1024;
+
+    /**
+     * 缓存段数，必须是 2 的幂
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * 每个缓存条目除 id 数组外的大致开销：LinkedHashMap 节点、Long 键、LongIdSet 对象
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    @Resource
+    private MidUserShareMapper midUserShareMapper;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * 条目加载后最多使用多久，超过后重新从数据库加载
+     */
+    private final long ttlMillis;
+
+    /**
+     * 按用户分段的兑换次数，加载期间如果同一段发生过兑换，加载结果可能漏掉新数据，不放进缓存
+     */
+    private final AtomicLongArray grantVersions = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param memoryBudgetBytes 缓存占用内存的上限，平均分给每一段
+     * @param ttlMillis         条目的最长使用时间
+     */
+    public EntitlementService(@Value("${share.entitlement.memory-budget-bytes:67108864}") long memoryBudgetBytes,
+                              @Value("${share.entitlement.ttl-ms:600000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(memoryBudgetBytes / SEGMENTS);
+        }
+    }
+
+    /**
+     * 其它实例上的兑换：把这条兑换加进本实例的缓存，不用重新查库
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        invalidationBus.subscribe(EntityTypes.ENTITLEMENT, event -> {
+            String[] ids = event.getId().split(":");
+            apply(Long.valueOf(ids[0]), Long.valueOf(ids[1]));
+        });
+    }
+
+    /**
+     * 用户是否已经兑换过该分享内容（本实例的缓存）
+     */
+    public boolean owns(Long userId, Long shareId) {
+        return owned(userId).contains(shareId);
+    }
+
+    /**
+     * 用户已兑换的全部分享内容，列表页一次取出后逐行判断，不用每行都访问缓存
+     */
+    public LongIdSet owned(Long userId) {
+        return load(userId);
+    }
+
+    /**
+     * 兑换成功、mid_user_share 写入后调用：更新本实例的缓存，并通知其它实例
+     */
+    public void grant(Long userId, Long shareId) {
+        apply(userId, shareId);
+        invalidationBus.publish(EntityTypes.ENTITLEMENT, userId + ":" + shareId);
+    }
+
+    /**
+     * 把一条兑换加进缓存；用户不在缓存里时不需要处理，下次访问会从数据库加载
+     */
+    private void apply(Long userId, Long shareId) {
+        grantVersions.incrementAndGet(stripe(userId));
+        Segment segment = segment(userId);
+        synchronized (segment) {
+            Entry entry = segment.entitlements.get(userId);
+            if (entry != null && !entry.owned.contains(shareId)) {
+                LongIdSet updated = entry.owned.with(shareId);
+                segment.entitlements.put(userId, new Entry(updated, entry.loadedAt));
+                segment.usedBytes += updated.estimatedBytes() - entry.owned.estimatedBytes();
+                segment.evictIfNeeded();
+            }
+        }
+    }
+
+    private LongIdSet load(Long userId) {
+        Segment segment = segment(userId);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            Entry entry = segment.entitlements.get(userId);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlMillis) {
+                    return entry.owned;
+                }
+                segment.remove(userId);
+            }
+        }
+
+        long version = grantVersions.get(stripe(userId));
+        LambdaQueryWrapper<MidUserShare> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(MidUserShare::getShareId).eq(MidUserShare::getUserId, userId);
+        LongIdSet loaded = LongIdSet.of(midUserShareMapper.selectList(wrapper).stream()
+                .mapToLong(MidUserShare::getShareId)
+                .toArray());
+        if (grantVersions.get(stripe(userId)) != version) {
+            // 加载期间有兑换，查询结果可能已经过期，这次直接用，不缓存
+            return loaded;
+        }
+
+        synchronized (segment) {
+            Entry existing = segment.entitlements.get(userId);
+            if (existing != null) {
+                return existing.owned;
+            }
+            segment.entitlements.put(userId, new Entry(loaded, now));
+            segment.usedBytes += loaded.estimatedBytes() + ENTRY_OVERHEAD_BYTES;
+            segment.evictIfNeeded();
+        }
+        return loaded;
+    }
+
+    private Segment segment(Long userId) {
+        return segments[Long.hashCode(userId * 0x9E3779B97F4A7C15L) & (SEGMENTS - 1)];
+    }
+
+    private int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    /**
+     * 缓存条目：已兑换的 shareId 和从数据库加载的时间，之后的兑换不改变加载时间
+     */
+    private static final class Entry {
+
+        private final LongIdSet owned;
+
+        private final long loadedAt;
+
+        private Entry(LongIdSet owned, long loadedAt) {
+            this.owned = owned;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 一段缓存：userId -> 已兑换的 shareId，accessOrder = true 即 LRU 顺序，所有访问都在段上加锁
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<Long, Entry> entitlements = new LinkedHashMap<>(64, 0.75f, true);
+
+        private final long budgetBytes;
+
+        private long usedBytes;
+
+        private Segment(long budgetBytes) {
+            this.budgetBytes = budgetBytes;
+        }
+
+        private void remove(Long userId) {
+            Entry removed = entitlements.remove(userId);
+            if (removed != null) {
+                usedBytes -= removed.owned.estimatedBytes() + ENTRY_OVERHEAD_BYTES;
+            }
+        }
+
+        private void evictIfNeeded() {
+            Iterator<Map.Entry<Long, Entry>> iterator = entitlements.entrySet().iterator();
+            while (usedBytes > budgetBytes && iterator.hasNext()) {
+                usedBytes -= iterator.next().getValue().owned.estimatedBytes() + ENTRY_OVERHEAD_BYTES;
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package top.mqxu.share.content.service;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.content.domain.entity.MidUserShare;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.event.ShareExchangedEvent;
+import top.mqxu.share.content.domain.resp.HotShareResp;
+import top.mqxu.share.content.mapper.MidUserShareMapper;
+import top.mqxu.share.content.mapper.ShareMapper;
+import top.mqxu.share.content.util.SlidingTopK;
+import top.mqxu.share.content.util.TopKCounter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 热门分享：根据兑换事件在内存里维护 1h / 24h / 7d 三个滑动窗口的 top-K，查询不访问数据库。
+ * 展示信息和桶绑定：分享 id 进入任意一个桶时建立条目，离开所有桶时删除，
+ * 信息来自兑换事件、启动时的初始化，分享变化（审核等）后在后台线程批量重新加载
+ */
+@Slf4j
+@Service
+public class HotShareService {
+
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    @Resource
+    private ShareMapper shareMapper;
+
+    @Resource
+    private MidUserShareMapper midUserShareMapper;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
+    /**
+     * 启动时从 mid_user_share 读取最近多少条兑换记录
+     */
+    @Value("${share.hot.rebuild-limit:100000}")
+    private int rebuildLimit;
+
+    /**
+     * 分享 id -> 所在桶数和展示信息，条目由桶的进出回调维护
+     */
+    private final ConcurrentHashMap<Long, Member> members = new ConcurrentHashMap<>();
+
+    /**
+     * 等待后台重新加载展示信息的分享 id
+     */
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hot-share-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 1 小时窗口：5 分钟一个桶，共 12 个桶
+     */
+    private final int capacityPerBucket;
+
+    private final SlidingTopK hourWindow;
+
+    /**
+     * 24 小时、7 天窗口：1 小时一个桶，共 168 个桶
+     */
+    private final SlidingTopK weekWindow;
+
+    /**
+     * 没有通过审核、不显示或已经删除的分享的展示信息，查询时跳过
+     */
+    private static final HotShareResp HIDDEN = new HotShareResp();
+
+    public HotShareService(@Value("${share.hot.capacity-per-bucket:200}") int capacityPerBucket) {
+        this.capacityPerBucket = capacityPerBucket;
+        TopKCounter.MembershipListener listener = new TopKCounter.MembershipListener() {
+            @Override
+            public void onEnter(long key) {
+                members.compute(key, (k, m) -> m == null ? new Member(1, null) : new Member(m.buckets + 1, m.info));
+            }
+
+            @Override
+            public void onLeave(long key) {
+                members.computeIfPresent(key, (k, m) -> m.buckets <= 1 ? null : new Member(m.buckets - 1, m.info));
+            }
+        };
+        this.hourWindow = new SlidingTopK(5 * MINUTE, 12, capacityPerBucket, listener);
+        this.weekWindow = new SlidingTopK(HOUR, 7 * 24, capacityPerBucket, listener);
+    }
+
+    /**
+     * 分享内容变化（如审核不通过）时在后台重新加载展示信息并检查审核状态
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        invalidationBus.subscribe(EntityTypes.SHARE, event -> scheduleRefresh(Long.valueOf(event.getId())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener
+    public void onExchanged(ShareExchangedEvent event) {
+        Share share = event.getShare();
+        if (!isApproved(share)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        hourWindow.add(share.getId(), 1, now);
+        weekWindow.add(share.getId(), 1, now);
+        setInfo(share.getId(), toResp(share));
+    }
+
+    /**
+     * 查询热门分享
+     *
+     * @param window 时间窗口：1h、24h、7d
+     * @param limit  条数
+     * @return 按兑换次数降序的热门分享
+     */
+    public List<HotShareResp> getHot(String window, int limit) {
+        long now = System.currentTimeMillis();
+        List<long[]> top = switch (window) {
+            case "1h" -> hourWindow.top(HOUR, limit, now);
+            case "24h" -> weekWindow.top(24 * HOUR, limit, now);
+            case "7d" -> weekWindow.top(7 * 24 * HOUR, limit, now);
+            default -> throw new IllegalArgumentException("不支持的时间窗口：" + window);
+        };
+
+        List<HotShareResp> result = new ArrayList<>(top.size());
+        for (long[] entry : top) {
+            Member member = members.get(entry[0]);
+            HotShareResp info = member == null ? null : member.info;
+            if (info == null) {
+                // 正常情况下不会缺少，缺少时跳过，交给后台补上
+                scheduleRefresh(entry[0]);
+                continue;
+            }
+            if (info == HIDDEN) {
+                continue;
+            }
+            HotShareResp resp = BeanUtil.copyProperties(info, HotShareResp.class);
+            resp.setCount(entry[1]);
+            result.add(resp);
+        }
+        return result;
+    }
+
+    /**
+     * 只有还在桶里的分享才需要重新加载；同一批变化合并成一次查询
+     */
+    private void scheduleRefresh(Long shareId) {
+        if (members.containsKey(shareId) && pendingRefresh.add(shareId)) {
+            refresher.execute(this::refreshPending);
+        }
+    }
+
+    private void refreshPending() {
+        List<Long> ids = new ArrayList<>(pendingRefresh);
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(pendingRefresh::remove);
+        try {
+            Map<Long, Share> shares = new HashMap<>(ids.size() * 2);
+            shareMapper.selectBatchIds(ids).forEach(share -> shares.put(share.getId(), share));
+            for (Long id : ids) {
+                Share share = shares.get(id);
+                setInfo(id, share != null && isApproved(share) ? toResp(share) : HIDDEN);
+            }
+        } catch (RuntimeException e) {
+            log.warn("重新加载热门分享信息失败，ids={}：{}", ids, e.toString());
+        }
+    }
+
+    /**
+     * 只更新还在桶里的分享，已经离开所有桶的不再保留
+     */
+    private void setInfo(long shareId, HotShareResp info) {
+        members.computeIfPresent(shareId, (k, m) -> new Member(m.buckets, info));
+    }
+
+    /**
+     * 启动时用 mid_user_share 里最近的兑换记录初始化热门数据
+     * mid_user_share 没有兑换时间，这些记录只计入 24h 和 7d 窗口，随时间自然过期
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LambdaQueryWrapper<MidUserShare> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(MidUserShare::getShareId).orderByDesc(MidUserShare::getId);
+        List<MidUserShare> recent = midUserShareMapper.selectList(Page.of(1, rebuildLimit, false), wrapper);
+        if (recent.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        recent.forEach(mid -> counts.merge(mid.getShareId(), 1L, Long::sum));
+        List<Long> topIds = counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(capacityPerBucket)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        for (Share share : shareMapper.selectBatchIds(topIds)) {
+            if (!isApproved(share)) {
+                continue;
+            }
+            weekWindow.add(share.getId(), counts.get(share.getId()), now);
+            setInfo(share.getId(), toResp(share));
+            loaded++;
+        }
+        log.info("热门分享初始化完成，兑换记录 {} 条，分享内容 {} 条", recent.size(), loaded);
+    }
+
+    private boolean isApproved(Share share) {
+        return "PASS".equals(share.getAuditStatus()) && Boolean.TRUE.equals(share.getShowFlag());
+    }
+
+    private HotShareResp toResp(Share share) {
+        return HotShareResp.builder()
+                .shareId(share.getId())
+                .title(share.getTitle())
+                .author(share.getAuthor())
+                .cover(share.getCover())
+                .price(share.getPrice())
+                .build();
+    }
+
+    /**
+     * 分享所在的桶数（两个窗口合计）和展示信息，不可变，整体替换
+     */
+    private static final class Member {
+
+        private final int buckets;
+
+        private final HotShareResp info;
+
+        private Member(int buckets, HotShareResp info) {
+            this.buckets = buckets;
+            this.info = info;
+        }
+    }
+
+}
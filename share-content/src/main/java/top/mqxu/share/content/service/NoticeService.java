@@ -1,23 +1,52 @@
 package top.mqxu.share.content.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
 import top.mqxu.share.content.domain.entity.Notice;
 import top.mqxu.share.content.mapper.NoticeMapper;
+import top.mqxu.share.content.util.SingleFlight;
 
 import java.util.List;
 
 @Service
 public class NoticeService {
+    private static final String LATEST = "latest";
+
     @Resource
 
     private NoticeMapper noticeMapper;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
+    @Value("${share.single-flight.reuse-ms:200}")
+    private long singleFlightReuseMs;
+
+    /**
+     * 首页每次都会查最新公告，并发的请求只查一次数据库
+     */
+    private SingleFlight<String, Notice> latestFlight;
+
+    @PostConstruct
+    public void init() {
+        latestFlight = new SingleFlight<>(singleFlightReuseMs);
+        invalidationBus.subscribe(EntityTypes.NOTICE, event -> latestFlight.invalidate(LATEST));
+    }
+
     public Notice getLatest() {
+        return latestFlight.load(LATEST, this::loadLatest);
+    }
+
+    private Notice loadLatest() {
         LambdaQueryWrapper<Notice> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Notice::getShowFlag, 1);
         wrapper.orderByDesc(Notice::getId);
         List<Notice> noticeList = noticeMapper.selectList(wrapper);
         return noticeList.get(0);
     }
-}
\ No newline at end of file
+}
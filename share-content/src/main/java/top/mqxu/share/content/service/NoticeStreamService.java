@@ -0,0 +1,281 @@
+package top.mqxu.share.content.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import top.mqxu.share.content.domain.entity.Notice;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 公告推送：一个定时任务查一次最新公告，有变化时推给所有 SSE 连接，客户端不用再轮询 /share/notice。
+ * 连接用 Servlet 异步处理，空闲时不占线程，只占一个 SseEmitter；事件 id 是公告 id，
+ * 客户端断线重连时带上 Last-Event-ID，和当前公告相同就不重复推送。
+ * 定时任务只把要发的事件挂到每个连接上（同一连接只保留最新的公告），真正的写出由单独的有界发送线程池完成，
+ * 慢客户端阻塞的是发送线程，不会拖住共用的定时任务线程
+ */
+@Slf4j
+@Service
+public class NoticeStreamService {
+
+    private static final String EVENT_NAME = "notice";
+
+    /**
+     * 心跳事件，构建一次所有连接共用
+     */
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    @Resource
+    private NoticeService noticeService;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Value("${share.notice-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${share.notice-stream.retry-ms:3000}")
+    private long retryMs;
+
+    private final int maxConnections;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 发送线程池：每个连接同一时间最多排一个发送任务，队列长度等于最大连接数
+     */
+    private final ThreadPoolExecutor sendExecutor;
+
+    private final AtomicLong snapshotVersion = new AtomicLong();
+
+    /**
+     * 当前公告，事件只构建一次，所有连接共用
+     */
+    private volatile Snapshot current;
+
+    public NoticeStreamService(@Value("${share.notice-stream.max-connections:10000}") int maxConnections,
+                               @Value("${share.notice-stream.send-threads:4}") int sendThreads) {
+        this.maxConnections = maxConnections;
+        AtomicInteger counter = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConnections), r -> {
+            Thread thread = new Thread(r, "notice-send-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sendExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 建立连接
+     *
+     * @param lastEventId 客户端收到的最后一个事件 id，可以为空
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (connections.size() >= maxConnections) {
+            throw new IllegalStateException("公告推送连接数已满，请稍后再试！");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(emitter);
+        emitter.onCompletion(() -> connections.remove(connection));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> connections.remove(connection));
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(retryMs).comment("connected"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        connections.add(connection);
+
+        // 先加入连接再读当前公告，之后的变化都会由 poll 推给它
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            snapshot = refresh();
+        }
+        if (snapshot != null && !snapshot.eventId.equals(lastEventId)) {
+            connection.offer(snapshot);
+        }
+        return emitter;
+    }
+
+    /**
+     * 所有连接共用一次查询，公告变化时推送
+     */
+    @Scheduled(fixedDelayString = "${share.notice-stream.poll-interval-ms:5000}")
+    public void poll() {
+        Snapshot before = current;
+        Snapshot after = refresh();
+        if (after != null && (before == null || !before.sameAs(after))) {
+            log.info("公告变化，推送给 {} 个连接，id：{}", connections.size(), after.eventId);
+            for (Connection connection : connections) {
+                connection.offer(after);
+            }
+        }
+    }
+
+    /**
+     * 心跳：SSE 注释行，客户端不会收到事件，但能让代理和网关知道连接还活着，也能及时发现断开的连接
+     */
+    @Scheduled(fixedDelayString = "${share.notice-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Connection connection : connections) {
+            connection.heartbeat();
+        }
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        sendExecutor.shutdownNow();
+        connections.forEach(connection -> connection.emitter.complete());
+        connections.clear();
+    }
+
+    private Snapshot refresh() {
+        Notice notice;
+        try {
+            notice = noticeService.getLatest();
+        } catch (RuntimeException e) {
+            log.warn("查询最新公告失败：{}", e.toString());
+            return current;
+        }
+        if (notice == null) {
+            return current;
+        }
+        try {
+            String eventId = String.valueOf(notice.getId());
+            Snapshot before = current;
+            if (before != null && before.eventId.equals(eventId) && Objects.equals(before.content, notice.getContent())) {
+                return before;
+            }
+            Snapshot snapshot = new Snapshot(snapshotVersion.incrementAndGet(), eventId, notice.getContent(),
+                    SseEmitter.event().id(eventId).name(EVENT_NAME)
+                            .data(objectMapper.writeValueAsString(notice), MediaType.APPLICATION_JSON).build());
+            current = snapshot;
+            return snapshot;
+        } catch (JsonProcessingException e) {
+            log.warn("公告序列化失败：{}", e.toString());
+            return current;
+        }
+    }
+
+    /**
+     * 一个 SSE 连接和它待发送的事件：公告只保留最新的一条，心跳只记一个标记
+     */
+    private final class Connection {
+
+        private final SseEmitter emitter;
+
+        private final AtomicReference<Snapshot> pendingNotice = new AtomicReference<>();
+
+        private final AtomicBoolean pendingHeartbeat = new AtomicBoolean();
+
+        /**
+         * 是否已经有发送任务在排队或执行，保证同一连接不会并发写
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 已经发出的公告版本，旧的公告不会在新的之后发出
+         */
+        private long sentVersion;
+
+        private Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Snapshot snapshot) {
+            pendingNotice.accumulateAndGet(snapshot,
+                    (pending, offered) -> pending == null || offered.version > pending.version ? offered : pending);
+            schedule();
+        }
+
+        void heartbeat() {
+            pendingHeartbeat.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sendExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                log.warn("公告发送队列已满，本次跳过：{}", e.toString());
+            }
+        }
+
+        private void drain() {
+            try {
+                Snapshot notice = pendingNotice.getAndSet(null);
+                if (notice != null && notice.version > sentVersion) {
+                    if (!send(notice.event)) {
+                        return;
+                    }
+                    sentVersion = notice.version;
+                    // 刚发过事件，本轮心跳可以省掉
+                    pendingHeartbeat.set(false);
+                }
+                if (pendingHeartbeat.getAndSet(false)) {
+                    send(HEARTBEAT);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // 发送期间又有新的事件
+            if (pendingNotice.get() != null || pendingHeartbeat.get()) {
+                schedule();
+            }
+        }
+
+        private boolean send(Set<DataWithMediaType> event) {
+            if (!connections.contains(this)) {
+                return false;
+            }
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开，onError/onCompletion 之前先移除，避免下次还往里写
+                connections.remove(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 一条公告，version 每次公告变化时递增
+     */
+    private record Snapshot(long version, String eventId, String content, Set<DataWithMediaType> event) {
+
+        boolean sameAs(Snapshot other) {
+            return eventId.equals(other.eventId) && Objects.equals(content, other.content);
+        }
+    }
+}
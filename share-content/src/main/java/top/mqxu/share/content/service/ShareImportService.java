@@ -0,0 +1,197 @@
+package top.mqxu.share.content.service;
+
+import com.baomidou.mybatisplus.core.batch.MybatisBatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.mqxu.share.content.domain.dto.ShareRequestDTO;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.resp.ShareImportResp;
+import top.mqxu.share.content.mapper.ShareMapper;
+import top.mqxu.share.util.SnowUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 批量投稿、导入：逐行校验，按块用 MyBatis 批量执行器写入
+ * 配合连接串的 rewriteBatchedStatements=true，一块数据只需要一次网络往返
+ */
+@Slf4j
+@Service
+public class ShareImportService {
+
+    /**
+     * 返回的失败原因最多保留的条数
+     */
+    private static final int MAX_ERRORS = 100;
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Resource
+    private ShareMapper shareMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    /**
+     * 每块写入的行数
+     */
+    @Value("${share.import.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 批量投稿
+     *
+     * @param shareRequestDTOList 投稿参数
+     * @param userId              投稿用户 id
+     * @return 导入结果
+     */
+    public ShareImportResp contributeBatch(List<ShareRequestDTO> shareRequestDTOList, Long userId) {
+        ShareImportResp resp = new ShareImportResp();
+        List<Share> chunk = new ArrayList<>(chunkSize);
+        List<Integer> lineNos = new ArrayList<>(chunkSize);
+        Date now = new Date();
+        for (int i = 0; i < shareRequestDTOList.size(); i++) {
+            addRow(resp, chunk, lineNos, i + 1, shareRequestDTOList.get(i), userId, now);
+            if (chunk.size() >= chunkSize) {
+                flushChunk(resp, chunk, lineNos);
+                now = new Date();
+            }
+        }
+        flushChunk(resp, chunk, lineNos);
+        return resp;
+    }
+
+    /**
+     * 流式导入 NDJSON：每行一个投稿参数，边读边写，内存只占一块的大小
+     *
+     * @param in     请求体
+     * @param userId 投稿用户 id
+     * @return 导入结果
+     */
+    public ShareImportResp importNdjson(InputStream in, Long userId) throws IOException {
+        ShareImportResp resp = new ShareImportResp();
+        List<Share> chunk = new ArrayList<>(chunkSize);
+        List<Integer> lineNos = new ArrayList<>(chunkSize);
+        Date now = new Date();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ShareRequestDTO shareRequestDTO;
+            try {
+                shareRequestDTO = objectMapper.readValue(line, ShareRequestDTO.class);
+            } catch (IOException e) {
+                resp.setTotal(resp.getTotal() + 1);
+                fail(resp, lineNo, "JSON 格式错误");
+                continue;
+            }
+            addRow(resp, chunk, lineNos, lineNo, shareRequestDTO, userId, now);
+            if (chunk.size() >= chunkSize) {
+                flushChunk(resp, chunk, lineNos);
+                now = new Date();
+            }
+        }
+        flushChunk(resp, chunk, lineNos);
+        log.info("投稿导入完毕，共 {} 行，成功 {} 行，失败 {} 行", resp.getTotal(), resp.getSuccess(), resp.getFailed());
+        return resp;
+    }
+
+    private void addRow(ShareImportResp resp, List<Share> chunk, List<Integer> lineNos, int lineNo,
+                        ShareRequestDTO shareRequestDTO, Long userId, Date now) {
+        resp.setTotal(resp.getTotal() + 1);
+        String error = validate(shareRequestDTO);
+        if (error != null) {
+            fail(resp, lineNo, error);
+            return;
+        }
+        chunk.add(Share.builder()
+                .id(SnowUtil.getSnowflakeNextId())
+                .isOriginal(shareRequestDTO.getIsOriginal())
+                .author(shareRequestDTO.getAuthor())
+                .price(shareRequestDTO.getPrice())
+                .downloadUrl(shareRequestDTO.getDownloadUrl())
+                .summary(shareRequestDTO.getSummary())
+                .buyCount(0)
+                .title(shareRequestDTO.getTitle())
+                .userId(userId)
+                .cover(shareRequestDTO.getCover())
+                .showFlag(false)
+                .auditStatus("NOT_YET")
+                .reason("未审核")
+                .createTime(now)
+                .updateTime(now).build());
+        lineNos.add(lineNo);
+    }
+
+    private String validate(ShareRequestDTO shareRequestDTO) {
+        if (shareRequestDTO == null) {
+            return "内容为空";
+        }
+        if (shareRequestDTO.getTitle() == null || shareRequestDTO.getTitle().isBlank()) {
+            return "标题不能为空";
+        }
+        if (shareRequestDTO.getAuthor() == null || shareRequestDTO.getAuthor().isBlank()) {
+            return "作者不能为空";
+        }
+        if (shareRequestDTO.getPrice() == null || shareRequestDTO.getPrice() < 0) {
+            return "价格不能为空且不能小于 0";
+        }
+        if (shareRequestDTO.getDownloadUrl() == null || shareRequestDTO.getDownloadUrl().isBlank()) {
+            return "下载地址不能为空";
+        }
+        return null;
+    }
+
+    /**
+     * 一块数据在一个事务里批量写入；整块失败时退回逐行写入，找出具体失败的行
+     */
+    private void flushChunk(ShareImportResp resp, List<Share> chunk, List<Integer> lineNos) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    new MybatisBatch<>(sqlSessionFactory, chunk).execute(new MybatisBatch.Method<Share>(ShareMapper.class).insert()));
+            resp.setSuccess(resp.getSuccess() + chunk.size());
+        } catch (Exception e) {
+            log.warn("批量写入失败，改为逐行写入，共 {} 行", chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    shareMapper.insert(chunk.get(i));
+                    resp.setSuccess(resp.getSuccess() + 1);
+                } catch (Exception rowException) {
+                    fail(resp, lineNos.get(i), "写入失败：" + rowException.getClass().getSimpleName());
+                }
+            }
+        }
+        chunk.clear();
+        lineNos.clear();
+    }
+
+    private void fail(ShareImportResp resp, int lineNo, String error) {
+        resp.setFailed(resp.getFailed() + 1);
+        if (resp.getErrors().size() < MAX_ERRORS) {
+            resp.getErrors().add("第 " + lineNo + " 行：" + error);
+        }
+    }
+}
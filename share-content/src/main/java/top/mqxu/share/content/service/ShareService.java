@@ -2,26 +2,57 @@ package top.mqxu.share.content.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import top.mqxu.share.common.datasource.ReadOnly;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
 import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.common.resp.CursorPageResp;
 import top.mqxu.share.content.domain.dto.ExchangeDTO;
+import top.mqxu.share.content.domain.dto.ShareAuditDTO;
 import top.mqxu.share.content.domain.dto.ShareRequestDTO;
 import top.mqxu.share.content.domain.dto.UserAddBonusMsgDTO;
 import top.mqxu.share.content.domain.entity.MidUserShare;
 import top.mqxu.share.content.domain.entity.Share;
 import top.mqxu.share.content.domain.entity.User;
+import top.mqxu.share.content.domain.event.ShareAuditedEvent;
+import top.mqxu.share.content.domain.event.ShareExchangedEvent;
+import top.mqxu.share.content.domain.resp.ShareListItem;
 import top.mqxu.share.content.domain.resp.ShareResp;
+import top.mqxu.share.content.feign.HedgedCaller;
+import top.mqxu.share.content.feign.UserProfileCache;
 import top.mqxu.share.content.feign.UserService;
+import top.mqxu.share.content.feign.UserServiceFallbackFactory;
 import top.mqxu.share.content.mapper.MidUserShareMapper;
 import top.mqxu.share.content.mapper.ShareMapper;
+import top.mqxu.share.content.util.LongIdSet;
+import top.mqxu.share.content.util.SingleFlight;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+@Slf4j
 @Service
 public class ShareService {
 
+    /**
+     * 查询用户的对冲策略名
+     */
+    private static final String GET_USER = "user-service.getUser";
+
+    /**
+     * 列表摘要在 SQL 里截断的长度，最大值和 ShareController 的 MAX_SUMMARY_LENGTH 一致
+     */
+    private static final int[] SUMMARY_LENGTHS = {10, 20, 50, 100, 200, 500};
+
     @Resource
     private ShareMapper shareMapper;
 
@@ -31,9 +62,42 @@ public class ShareService {
     @Resource
     private MidUserShareMapper midUserShareMapper;
 
-    public List<Share> getList(String title, Integer pageNo, Integer pageSize, Long userId) {
-        // 构造查询条件
-        LambdaQueryWrapper<Share> wrapper = new LambdaQueryWrapper<>();
+    @Resource
+    private UserProfileCache userProfileCache;
+
+    @Resource
+    private HedgedCaller hedgedCaller;
+
+    @Resource
+    private BuyCountService buyCountService;
+
+    @Resource
+    private EntitlementService entitlementService;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
+    @Value("${share.single-flight.reuse-ms:200}")
+    private long singleFlightReuseMs;
+
+    /**
+     * 详情的请求合并：同一个 id 并发的请求只查一次数据库和 user-service
+     */
+    private SingleFlight<Long, ShareResp> detailFlight;
+
+    @PostConstruct
+    public void init() {
+        detailFlight = new SingleFlight<>(singleFlightReuseMs);
+        invalidationBus.subscribe(EntityTypes.SHARE, event -> detailFlight.invalidate(Long.valueOf(event.getId())));
+    }
+
+    @ReadOnly
+    public List<ShareListItem> getList(String title, Integer pageNo, Integer pageSize, Long userId, Integer summaryLength) {
+        // 构造查询条件，只查询列表需要的列
+        LambdaQueryWrapper<Share> wrapper = listQuery(summaryLength);
         // 按照 id 降序查询所有数据
         wrapper.orderByDesc(Share::getId);
 
@@ -50,42 +114,121 @@ public class ShareService {
         List<Share> shares = shareMapper.selectList(page,wrapper);
         List<Share> sharesDeal;
 
-        // 1. 如果用户没有登录，那么 downloadUrl 全部设为 null
-        if (userId != null) {
+        // 1. 如果用户没有登录（没有 token 时 userId 为 0），那么 downloadUrl 全部设为 null
+        if (userId == null || userId == 0) {
             sharesDeal = shares.stream()
                     .peek(share -> share.setDownloadUrl(null))
                     .toList();
         } else {
-            // 2. 如果用户登录了，查询 mid_user_share 表
+            // 2. 如果用户登录了，在内存里检查是否兑换过（首次访问时从 mid_user_share 表加载）
+            LongIdSet owned = entitlementService.owned(userId);
             sharesDeal = shares.stream()
                     .peek(share -> {
-                        MidUserShare midUserShare = midUserShareMapper.selectOne(
-                                new QueryWrapper<MidUserShare>().lambda()
-                                        .eq(MidUserShare::getUserId, userId)
-                                        .eq(MidUserShare::getShareId, share.getId())
-                        );
-                        if (midUserShare == null) {
+                        if (!owned.contains(share.getId())) {
                             share.setDownloadUrl(null);
                         }
                     })
                     .toList();
         }
 
-        return sharesDeal;
+        return sharesDeal.stream()
+                .map(share -> toListItem(share, summaryLength))
+                .toList();
+    }
+
+    /**
+     * 列表查询的列：摘要需要截断时在 SQL 里用 LEFT 截断，整段摘要不用从数据库读到应用里
+     *
+     * @param summaryLength 摘要最大长度，为空或不大于 0 时不截断
+     * @param extraColumns  其它要查询的列
+     * @return 只选了列、还没有条件的查询
+     */
+    private LambdaQueryWrapper<Share> listQuery(Integer summaryLength, String... extraColumns) {
+        List<String> columns = new ArrayList<>(List.of("id", "user_id", "title", "is_original", "author", "cover",
+                summaryColumn(summaryLength), "price", "download_url", "buy_count"));
+        columns.addAll(List.of(extraColumns));
+        return new QueryWrapper<Share>().select(true, columns).lambda();
+    }
+
+    /**
+     * 截断长度向上取到 SUMMARY_LENGTHS 里的值写进 SQL，列表查询只有这几种语句，多出的部分在 {@link #toListItem} 里截掉
+     */
+    private static String summaryColumn(Integer summaryLength) {
+        if (summaryLength == null || summaryLength <= 0) {
+            return "summary";
+        }
+        for (int length : SUMMARY_LENGTHS) {
+            if (summaryLength <= length) {
+                return "LEFT(summary, " + length + ") AS summary";
+            }
+        }
+        return "summary";
+    }
+
+    /**
+     * 转换成列表项：合并未写入数据库的兑换次数，摘要截断到 summaryLength
+     *
+     * @param share         分享内容
+     * @param summaryLength 摘要最大长度，为空或不大于 0 时不截断
+     * @return 列表项
+     */
+    private ShareListItem toListItem(Share share, Integer summaryLength) {
+        buyCountService.merge(share);
+        String summary = share.getSummary();
+        if (summary != null && summaryLength != null && summaryLength > 0 && summary.length() > summaryLength) {
+            summary = summary.substring(0, summaryLength);
+        }
+        return ShareListItem.builder()
+                .id(share.getId())
+                .userId(share.getUserId())
+                .title(share.getTitle())
+                .isOriginal(share.getIsOriginal())
+                .author(share.getAuthor())
+                .cover(share.getCover())
+                .summary(summary)
+                .price(share.getPrice())
+                .downloadUrl(share.getDownloadUrl())
+                .buyCount(share.getBuyCount())
+                .auditStatus(share.getAuditStatus())
+                .showFlag(share.getShowFlag())
+                .build();
     }
 
+    @ReadOnly
     public ShareResp findById(Long shareId) {
+        return detailFlight.load(shareId, () -> loadById(shareId));
+    }
+
+    private ShareResp loadById(Long shareId) {
         Share share = shareMapper.selectById(shareId);
+        buyCountService.merge(share);
 
-        // 调用 feign 方法，根据用户 id 查询到用户信息
-        CommonResp<User> commonResp = userService.getUser(share.getUserId());
+        // 调用 feign 方法，根据用户 id 查询到用户信息，user-service 不可用时可能是缓存数据或为空
+        User user = getUser(share.getUserId()).getData();
 
         return ShareResp.builder()
                 .share(share)
-                .nickname(commonResp.getData().getNickname())
-                .avatarUrl(commonResp.getData().getAvatarUrl())
+                .nickname(user == null ? null : user.getNickname())
+                .avatarUrl(user == null ? null : user.getAvatarUrl())
                 .build();
     }
+
+    /**
+     * 调用 user-service 查询用户，成功时顺便刷新本地缓存，供熔断降级使用；
+     * 慢调用会对冲到另一个实例，降级数据不算结果
+     *
+     * @param userId 用户 id
+     * @return 用户信息
+     */
+    private CommonResp<User> getUser(Long userId) {
+        CommonResp<User> commonResp = hedgedCaller.call(GET_USER, () -> userService.getUser(userId),
+                resp -> !UserServiceFallbackFactory.FALLBACK_MESSAGE.equals(resp.getMessage()));
+        if (!UserServiceFallbackFactory.FALLBACK_MESSAGE.equals(commonResp.getMessage())) {
+            userProfileCache.put(commonResp.getData());
+        }
+        return commonResp;
+    }
+
     public Share exchange(ExchangeDTO exchangeDTO) {
         Long userId = exchangeDTO.getUserId();
         Long shareId = exchangeDTO.getShareId();
@@ -96,39 +239,57 @@ public class ShareService {
             throw new IllegalArgumentException("该分享内容不存在！");
         }
 
-        // 2. 如果当前用户已经兑换过，则直接返回该分享内容（不需要扣积分）
-        MidUserShare midUserShare = midUserShareMapper.selectOne(
-                new QueryWrapper<MidUserShare>().lambda()
-                        .eq(MidUserShare::getUserId, userId)
-                        .eq(MidUserShare::getShareId, shareId)
-        );
-        if (midUserShare != null) {
-            return share; // 用户已兑换过，直接返回分享内容
+        // 2. 先向 mid_user_share 表插入一条数据占位，(user_id, share_id) 上有唯一键（见 sql/mid_user_share.sql），
+        //    插入失败说明已经兑换过（包括其它实例上同时进行的兑换），直接返回分享内容，不扣积分；
+        //    唯一键就是“是否兑换过”的判断，不用先查缓存或数据库
+        MidUserShare midUserShare = MidUserShare.builder()
+                .userId(userId)
+                .shareId(shareId)
+                .build();
+        try {
+            midUserShareMapper.insert(midUserShare);
+        } catch (DuplicateKeyException e) {
+            log.info("用户已兑换过，不重复扣积分，userId：{}，shareId：{}", userId, shareId);
+            entitlementService.grant(userId, shareId);
+            return share;
+        }
+
+        // 3. 判断用户积分是否足够并扣分，任何一步失败都删掉占位记录，用户可以重新兑换
+        try {
+            chargeBonus(userId, share.getPrice());
+        } catch (RuntimeException e) {
+            midUserShareMapper.deleteById(midUserShare.getId());
+            throw e;
         }
+        entitlementService.grant(userId, shareId);
+
+        // 4. 兑换次数 +1，先记在内存计数器里，定时批量写入数据库
+        buyCountService.increment(shareId);
+        eventPublisher.publishEvent(new ShareExchangedEvent(share, userId));
 
-        // 3. 判断用户积分是否足够兑换该内容
-        CommonResp<User> commonResp = userService.getUser(userId);
-        User user = commonResp.getData();
-        Integer price = share.getPrice(); // 兑换这条内容需要的积分
+        return share; // 返回分享内容
+    }
 
+    /**
+     * 扣除兑换需要的积分：从 user-service 的主库读积分，从库和降级的缓存数据里积分都可能过期，不能用来兑换
+     *
+     * @param userId 用户 id
+     * @param price  兑换需要的积分
+     */
+    private void chargeBonus(Long userId, Integer price) {
+        CommonResp<User> commonResp = userService.getUserFromPrimary(userId);
+        if (UserServiceFallbackFactory.FALLBACK_MESSAGE.equals(commonResp.getMessage())) {
+            throw new IllegalArgumentException("用户服务暂不可用，请稍后再试！");
+        }
         // 用户的积分不够
-        if (price > user.getBonus()) {
+        if (price > commonResp.getData().getBonus()) {
             throw new IllegalArgumentException("用户积分不够！");
         }
-
-        // 4. 修改积分：乘以 -1 变成负值，就是扣分
+        // 修改积分：乘以 -1 变成负值，就是扣分
         userService.updateBonus(UserAddBonusMsgDTO.builder()
                 .userId(userId)
                 .bonus(price * -1)
                 .build());
-
-        // 5. 向 mid_user_share 表插入一条数据，记录这个用户已经兑换过，就拥有了下载权限（前端页面）
-        midUserShareMapper.insert(MidUserShare.builder()
-                .userId(userId)
-                .shareId(shareId)
-                .build());
-
-        return share; // 返回分享内容
     }
 
     /**
@@ -137,6 +298,7 @@ public class ShareService {
      * 投稿参数 *
      * @return int */
     public int contribute(ShareRequestDTO shareRequestDTO) {
+        Date now = new Date();
         Share share = Share.builder()
                 .isOriginal(shareRequestDTO.getIsOriginal())
                 .author(shareRequestDTO.getAuthor())
@@ -150,25 +312,76 @@ public class ShareService {
                 .showFlag(false)
                 .auditStatus("NOT_YET")
                 .reason("未审核")
-                .createTime(new Date())
-                .updateTime(new Date()).build();
-        return shareMapper.insert(share);
+                .createTime(now)
+                .updateTime(now).build();
+        int rows = shareMapper.insert(share);
+        invalidationBus.publish(EntityTypes.SHARE, share.getId());
+        return rows;
     }
 
-    public List<Share> myContribute(Integer pageNo,Integer pageSize,Long userId) {
-        LambdaQueryWrapper<Share> wrapper = new LambdaQueryWrapper<>();
+    @ReadOnly
+    public List<ShareListItem> myContribute(Integer pageNo, Integer pageSize, Long userId, Integer summaryLength) {
+        LambdaQueryWrapper<Share> wrapper = listQuery(summaryLength, "audit_status", "show_flag");
         wrapper.orderByDesc(Share::getId);
         wrapper.eq(Share::getUserId, userId);
         Page<Share> page = Page.of(pageNo, pageSize);
-        return shareMapper.selectList(page, wrapper);
+        return shareMapper.selectList(page, wrapper).stream()
+                .map(share -> toListItem(share, summaryLength))
+                .toList();
     }
 
-    /** * 查询待审核的shares列表 * * @return List<Share> */
-    public List<Share> queryShareNotYet() {
-        LambdaQueryWrapper<Share> wrapper=new LambdaQueryWrapper<>();
+    /**
+     * 游标分页查询待审核的 shares 列表，按 id 降序
+     *
+     * @param cursor   上一页最后一条的 id，第一页传 null
+     * @param pageSize 每页条数
+     * @return 一页待审核的分享内容
+     */
+    @ReadOnly
+    public CursorPageResp<Share> queryShareNotYet(Long cursor, Integer pageSize) {
+        LambdaQueryWrapper<Share> wrapper = new LambdaQueryWrapper<>();
         wrapper.orderByDesc(Share::getId);
-        wrapper.eq(Share::getAuditStatus,"NOT_YET").eq(Share::getShowFlag,false);
-        return shareMapper.selectList(wrapper);}
+        wrapper.eq(Share::getAuditStatus, "NOT_YET").eq(Share::getShowFlag, false);
+        wrapper.lt(cursor != null, Share::getId, cursor);
+        // 不用 offset，也不查总数，翻到多深都只扫描一页
+        List<Share> shares = shareMapper.selectList(Page.of(1, pageSize, false), wrapper);
+        Long nextCursor = shares.size() < pageSize ? null : shares.get(shares.size() - 1).getId();
+        return CursorPageResp.<Share>builder()
+                .list(shares)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * 批量审核，一条 UPDATE 更新所有待审核的 id
+     *
+     * @param shareAuditDTO 审核参数
+     * @return 实际审核的条数
+     */
+    public int audit(ShareAuditDTO shareAuditDTO) {
+        List<Long> ids = shareAuditDTO.getIds();
+        String auditStatus = shareAuditDTO.getAuditStatus();
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("审核的分享内容不能为空！");
+        }
+        if (!"PASS".equals(auditStatus) && !"REJECT".equals(auditStatus)) {
+            throw new IllegalArgumentException("审核结果只能是 PASS 或 REJECT！");
+        }
+
+        boolean pass = "PASS".equals(auditStatus);
+        LambdaUpdateWrapper<Share> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(Share::getAuditStatus, auditStatus)
+                .set(Share::getReason, shareAuditDTO.getReason())
+                .set(Share::getShowFlag, pass && !Boolean.FALSE.equals(shareAuditDTO.getShowFlag()))
+                .set(Share::getUpdateTime, new Date())
+                .in(Share::getId, ids)
+                .eq(Share::getAuditStatus, "NOT_YET");
+        int rows = shareMapper.update(null, wrapper);
+
+        eventPublisher.publishEvent(new ShareAuditedEvent(ids, auditStatus));
+        ids.forEach(id -> invalidationBus.publish(EntityTypes.SHARE, id));
+        return rows;
+    }
 
 }
 
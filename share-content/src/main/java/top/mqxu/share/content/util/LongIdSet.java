@@ -0,0 +1,64 @@
+package top.mqxu.share.content.util;
+
+import java.util.Arrays;
+
+/**
+ * 不可变的 long 有序集合，底层是排好序的 long[]，用二分查找判断是否包含
+ * 每个元素 8 字节，没有装箱和哈希表的开销；添加元素时返回新的集合（写少读多）
+ */
+public final class LongIdSet {
+
+    public static final LongIdSet EMPTY = new LongIdSet(new long[0]);
+
+    private final long[] ids;
+
+    private LongIdSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * @param ids 元素，可以无序、可以重复
+     */
+    public static LongIdSet of(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new LongIdSet(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * @return 包含 id 的新集合，已经包含时返回自身
+     */
+    public LongIdSet with(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return new LongIdSet(copy);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 估算占用的内存字节数（对象头 + 数组）
+     */
+    public long estimatedBytes() {
+        return 32 + 8L * ids.length;
+    }
+}
@@ -0,0 +1,125 @@
+package top.mqxu.share.content.util;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（single-flight）：同一个 key 同时只有一个线程真正去加载，其余线程等它的结果
+ * 加载完成后立即从进行中的表里移除，结果只在 reuseMillis 内复用，不会一直占着内存
+ *
+ * @param <K> key 类型
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * key -> 正在进行的加载
+     */
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 刚加载完的结果，reuseMillis 为 0 时不复用
+     */
+    private final TimedCache<K, V> recent;
+
+    public SingleFlight(long reuseMillis) {
+        if (reuseMillis > 0) {
+            this.recent = CacheUtil.newTimedCache(reuseMillis);
+            this.recent.schedulePrune(reuseMillis);
+        } else {
+            this.recent = null;
+        }
+    }
+
+    /**
+     * 加载 key 对应的结果，并发的调用共用同一次加载；加载抛出的异常所有等待的调用都会收到
+     *
+     * @param key    key
+     * @param loader 真正的加载逻辑
+     * @return 结果
+     */
+    public V load(K key, Supplier<V> loader) {
+        if (recent != null) {
+            V cached = recent.get(key, false);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Flight<V> flight = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return join(existing.future);
+        }
+
+        try {
+            V value = loader.get();
+            // 先放进复用缓存再移出进行中的表，后来的线程总能拿到其中一个
+            if (recent != null && value != null) {
+                recent.put(key, value);
+                // 加载期间 key 被淘汰过，结果可能是旧数据，不复用
+                if (flight.invalidated) {
+                    recent.remove(key);
+                }
+            }
+            flight.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 丢弃 key 已加载的结果，数据变化后下次调用重新加载
+     * 正在进行的加载可能读到了变化前的数据：之后的调用不再等它，它的结果也不放进复用缓存
+     */
+    public void invalidate(K key) {
+        Flight<V> flight = inFlight.remove(key);
+        if (flight != null) {
+            flight.invalidated = true;
+        }
+        if (recent != null) {
+            recent.remove(key);
+        }
+    }
+
+    /**
+     * 当前正在进行的加载数
+     */
+    public int inFlightSize() {
+        return inFlight.size();
+    }
+
+    /**
+     * 一次进行中的加载
+     */
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private volatile boolean invalidated;
+    }
+
+    private V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package top.mqxu.share.content.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 按时间分桶的滑动窗口 top-K：环形数组里每个桶是一个 {@link TopKCounter}，
+ * 桶过期后被下一轮复用，查询时合并窗口内的桶再用小顶堆取前 k 个
+ */
+public class SlidingTopK {
+
+    private final long bucketMillis;
+
+    private final TopKCounter[] buckets;
+
+    /**
+     * 每个桶当前对应的时间段起点
+     */
+    private final long[] bucketStarts;
+
+    public SlidingTopK(long bucketMillis, int bucketCount, int capacityPerBucket) {
+        this(bucketMillis, bucketCount, capacityPerBucket, null);
+    }
+
+    /**
+     * @param listener 每个桶里 key 的进出回调，同一个 key 在几个桶里就会收到几次 onEnter
+     */
+    public SlidingTopK(long bucketMillis, int bucketCount, int capacityPerBucket,
+                       TopKCounter.MembershipListener listener) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new TopKCounter[bucketCount];
+        this.bucketStarts = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new TopKCounter(capacityPerBucket, listener);
+            bucketStarts[i] = -1;
+        }
+    }
+
+    public void add(long key, long n, long now) {
+        long start = now - now % bucketMillis;
+        int index = (int) ((start / bucketMillis) % buckets.length);
+        TopKCounter bucket = buckets[index];
+        synchronized (bucket) {
+            if (bucketStarts[index] != start) {
+                // 桶里是上一轮的数据，清空后复用
+                bucket.clear();
+                bucketStarts[index] = start;
+            }
+            bucket.add(key, n);
+        }
+    }
+
+    /**
+     * 查询最近 windowMillis 内计数最多的 k 个 key
+     *
+     * @return [key, count] 列表，按 count 降序
+     */
+    public List<long[]> top(long windowMillis, int k, long now) {
+        long from = now - now % bucketMillis - windowMillis + bucketMillis;
+        Map<Long, Long> merged = new HashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            synchronized (buckets[i]) {
+                if (bucketStarts[i] >= from && bucketStarts[i] <= now) {
+                    buckets[i].mergeInto(merged);
+                }
+            }
+        }
+
+        PriorityQueue<long[]> heap = new PriorityQueue<>(k + 1, (a, b) -> Long.compare(a[1], b[1]));
+        merged.forEach((key, count) -> {
+            heap.offer(new long[]{key, count});
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        });
+        List<long[]> result = new ArrayList<>(heap);
+        result.sort((a, b) -> Long.compare(b[1], a[1]));
+        return result;
+    }
+}
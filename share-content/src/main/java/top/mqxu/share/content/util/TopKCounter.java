@@ -0,0 +1,84 @@
+package top.mqxu.share.content.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving 算法的 top-K 计数器：最多保留 capacity 个计数，满了以后新 key 顶替计数最小的那个
+ * 内存和 key 的总数无关，高频 key 的计数误差不超过被顶替时的最小计数
+ */
+public class TopKCounter {
+
+    private final int capacity;
+
+    /**
+     * key -> 计数
+     */
+    private final Map<Long, Long> counts;
+
+    private final MembershipListener listener;
+
+    public TopKCounter(int capacity) {
+        this(capacity, null);
+    }
+
+    public TopKCounter(int capacity, MembershipListener listener) {
+        this.capacity = capacity;
+        this.counts = new HashMap<>(capacity * 2);
+        this.listener = listener;
+    }
+
+    public synchronized void add(long key, long n) {
+        Long count = counts.get(key);
+        if (count != null) {
+            counts.put(key, count + n);
+            return;
+        }
+        if (counts.size() < capacity) {
+            counts.put(key, n);
+            if (listener != null) {
+                listener.onEnter(key);
+            }
+            return;
+        }
+        // 满了：顶替计数最小的 key，新 key 继承它的计数
+        long minKey = 0;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            if (entry.getValue() < minCount) {
+                minKey = entry.getKey();
+                minCount = entry.getValue();
+            }
+        }
+        counts.remove(minKey);
+        counts.put(key, minCount + n);
+        if (listener != null) {
+            listener.onLeave(minKey);
+            listener.onEnter(key);
+        }
+    }
+
+    /**
+     * 把当前计数累加到 target 中
+     */
+    public synchronized void mergeInto(Map<Long, Long> target) {
+        counts.forEach((key, count) -> target.merge(key, count, Long::sum));
+    }
+
+    public synchronized void clear() {
+        if (listener != null) {
+            counts.keySet().forEach(listener::onLeave);
+        }
+        counts.clear();
+    }
+
+    /**
+     * key 进入、离开计数器时的回调，在计数器的锁内调用，不能做耗时操作
+     */
+    public interface MembershipListener {
+
+        void onEnter(long key);
+
+        void onLeave(long key);
+    }
+}
@@ -0,0 +1,40 @@
+package top.mqxu.share.content.warmup;
+
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.warmup.WarmUpTask;
+import top.mqxu.share.content.domain.resp.HotShareResp;
+import top.mqxu.share.content.service.HotShareService;
+import top.mqxu.share.content.service.ShareService;
+
+/**
+ * 查询热门分享的详情：预热 user-service 的 Feign 调用（负载均衡、熔断器、连接），
+ * 同时把作者资料放进本地缓存，user-service 不可用时可以降级
+ */
+@Order(3)
+@Component
+public class HotShareWarmUpTask implements WarmUpTask {
+
+    @Resource
+    private HotShareService hotShareService;
+
+    @Resource
+    private ShareService shareService;
+
+    @Value("${share.warm-up.hot-details:20}")
+    private int limit;
+
+    @Override
+    public String name() {
+        return "hot-share-detail";
+    }
+
+    @Override
+    public void run() {
+        for (HotShareResp hot : hotShareService.getHot("24h", limit)) {
+            shareService.findById(hot.getShareId());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package top.mqxu.share.content.warmup;
+
+import jakarta.annotation.Resource;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.warmup.WarmUpTask;
+import top.mqxu.share.content.service.NoticeStreamService;
+
+/**
+ * 加载最新公告，同时准备好 SSE 推送的公告快照
+ */
+@Order(1)
+@Component
+public class NoticeWarmUpTask implements WarmUpTask {
+
+    @Resource
+    private NoticeStreamService noticeStreamService;
+
+    @Override
+    public String name() {
+        return "notice";
+    }
+
+    @Override
+    public void run() {
+        noticeStreamService.poll();
+    }
+}
@@ -0,0 +1,39 @@
+package top.mqxu.share.content.warmup;
+
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import top.mqxu.share.common.warmup.WarmUpTask;
+import top.mqxu.share.content.service.ShareService;
+
+/**
+ * 查询分享列表的前几页（未登录视角），建立数据库连接、预热 SQL 和兑换次数合并
+ */
+@Order(2)
+@Component
+public class ShareListWarmUpTask implements WarmUpTask {
+
+    @Resource
+    private ShareService shareService;
+
+    @Value("${share.warm-up.list-pages:3}")
+    private int pages;
+
+    @Value("${share.warm-up.list-page-size:10}")
+    private int pageSize;
+
+    @Override
+    public String name() {
+        return "share-list";
+    }
+
+    @Override
+    public void run() {
+        for (int pageNo = 1; pageNo <= pages; pageNo++) {
+            if (shareService.getList(null, pageNo, pageSize, 0L, 100).size() < pageSize) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+-- 兑换记录唯一键：同一个用户对同一条分享内容只能有一条记录，多个实例同时兑换时靠它防止重复扣积分
+-- 加唯一键前先清理已有的重复记录，每组只保留 id 最小的一条
+DELETE a FROM mid_user_share a
+    JOIN mid_user_share b ON a.user_id = b.user_id AND a.share_id = b.share_id AND a.id > b.id;
+
+ALTER TABLE mid_user_share ADD UNIQUE KEY uk_user_share (user_id, share_id);
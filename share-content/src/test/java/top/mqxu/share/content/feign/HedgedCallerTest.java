@@ -0,0 +1,95 @@
+package top.mqxu.share.content.feign;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicy;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicyRegistry;
+import top.mqxu.share.loadbalancer.hedge.HedgeProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 第一次调用（主调用）200ms 才返回，第二次调用（对冲调用）立即返回，对冲延迟 20ms
+ */
+class HedgedCallerTest {
+
+    private static final String NAME = "user-service.getUser";
+
+    private static final String FALLBACK = "fallback";
+
+    private final HedgedCaller caller = new HedgedCaller(4);
+
+    private HedgePolicyRegistry policyRegistry;
+
+    @AfterEach
+    void tearDown() {
+        caller.shutdown();
+    }
+
+    @Test
+    void fasterUsableResultWins() {
+        init();
+        String result = caller.call(NAME, calls("primary", "hedge"), usable());
+
+        assertEquals("hedge", result);
+        HedgePolicy policy = policyRegistry.get(NAME);
+        assertEquals(1, policy.getHedged());
+        assertEquals(1, policy.getHedgeWon());
+    }
+
+    @Test
+    void fallbackFromHedgeDoesNotWin() {
+        init();
+        String result = caller.call(NAME, calls("primary", FALLBACK), usable());
+
+        assertEquals("primary", result);
+        assertEquals(0, policyRegistry.get(NAME).getHedgeWon());
+    }
+
+    @Test
+    void bothFallbackReturnsPrimary() {
+        init();
+        // 对冲调用先返回，但两个都是降级结果时用主调用的
+        String result = caller.call(NAME, calls(FALLBACK + ":primary", FALLBACK + ":hedge"),
+                value -> !value.startsWith(FALLBACK));
+
+        assertEquals(FALLBACK + ":primary", result);
+        assertEquals(1, policyRegistry.get(NAME).getHedged());
+        assertEquals(0, policyRegistry.get(NAME).getHedgeWon());
+    }
+
+    private void init() {
+        HedgeProperties properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setInitialDelayMs(20);
+        properties.setBudgetRatio(1);
+        policyRegistry = new HedgePolicyRegistry(properties);
+        ReflectionTestUtils.setField(caller, "hedgePolicyRegistry", policyRegistry);
+        ReflectionTestUtils.setField(caller, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    private static Predicate<String> usable() {
+        return value -> !FALLBACK.equals(value);
+    }
+
+    private static Supplier<String> calls(String primary, String hedge) {
+        AtomicInteger count = new AtomicInteger();
+        return () -> {
+            if (count.incrementAndGet() > 1) {
+                return hedge;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return primary;
+        };
+    }
+}
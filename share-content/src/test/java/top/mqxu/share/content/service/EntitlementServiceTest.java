@@ -0,0 +1,163 @@
+package top.mqxu.share.content.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.common.invalidation.InvalidationProperties;
+import top.mqxu.share.common.invalidation.LoopbackInvalidationTransport;
+import top.mqxu.share.content.domain.entity.MidUserShare;
+import top.mqxu.share.content.mapper.MidUserShareMapper;
+import top.mqxu.share.content.util.LongIdSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 两个 EntitlementService 共用一个内嵌 H2，各自的失效总线用进程内传输互通，分别代表 content-service 的两个实例
+ */
+class EntitlementServiceTest {
+
+    private static final long BUDGET = 64 * 1024 * 1024;
+
+    private static final long TTL = 60_000;
+
+    private TestDatabase db;
+
+    private MidUserShareMapper mapper;
+
+    private final List<InvalidationBus> buses = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = new TestDatabase();
+        mapper = db.mapper(MidUserShareMapper.class);
+        exchange(1L, 10L);
+        exchange(1L, 20L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(InvalidationBus::shutdown);
+        db.close();
+    }
+
+    @Test
+    void loadsOnceThenAnswersFromMemory() {
+        EntitlementService service = instance(mapper, TTL);
+
+        LongIdSet owned = service.owned(1L);
+        assertTrue(owned.contains(10L));
+        assertTrue(owned.contains(20L));
+        assertFalse(owned.contains(30L));
+
+        db.resetCounts();
+        assertTrue(service.owns(1L, 10L));
+        assertFalse(service.owns(1L, 30L));
+        assertEquals(0, db.roundTrips());
+    }
+
+    @Test
+    void grantUpdatesTheCachedSet() {
+        EntitlementService service = instance(mapper, TTL);
+        service.owned(1L);
+
+        exchange(1L, 30L);
+        service.grant(1L, 30L);
+
+        db.resetCounts();
+        assertTrue(service.owns(1L, 30L));
+        assertEquals(0, db.roundTrips());
+    }
+
+    @Test
+    void grantDuringLoadIsNotCached() {
+        MidUserShareMapper racing = mock(MidUserShareMapper.class);
+        EntitlementService service = instance(racing, TTL);
+        // 查询已经读完旧数据、还没放进缓存时发生了兑换
+        when(racing.selectList(any())).thenAnswer(invocation -> {
+            service.grant(1L, 30L);
+            return List.of(MidUserShare.builder().userId(1L).shareId(10L).build());
+        }).thenReturn(List.of(
+                MidUserShare.builder().userId(1L).shareId(10L).build(),
+                MidUserShare.builder().userId(1L).shareId(30L).build()));
+
+        assertFalse(service.owned(1L).contains(30L));
+        // 过期的结果没有放进缓存，下次访问重新加载
+        assertTrue(service.owned(1L).contains(30L));
+        assertTrue(service.owns(1L, 30L));
+        verify(racing, times(2)).selectList(any());
+    }
+
+    @Test
+    void exchangeOnAnotherInstanceReachesThisOne() {
+        EntitlementService a = instance(mapper, TTL);
+        EntitlementService b = instance(mapper, TTL);
+        assertFalse(a.owns(1L, 30L));
+        assertFalse(b.owns(1L, 30L));
+
+        exchange(1L, 30L);
+        b.grant(1L, 30L);
+
+        db.resetCounts();
+        assertTrue(waitUntil(() -> a.owns(1L, 30L)));
+        // a 收到事件后直接更新缓存，没有重新查库
+        assertEquals(0, db.roundTrips());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        EntitlementService service = instance(mapper, 50);
+        assertFalse(service.owns(1L, 30L));
+
+        // 没有经过总线的兑换（如事件丢失），过期后重新加载能看到
+        exchange(1L, 30L);
+        assertFalse(service.owns(1L, 30L));
+        Thread.sleep(100);
+        assertTrue(service.owns(1L, 30L));
+    }
+
+    private EntitlementService instance(MidUserShareMapper midUserShareMapper, long ttlMillis) {
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setCoalesceMs(10);
+        InvalidationBus bus = new InvalidationBus(new LoopbackInvalidationTransport(), properties, "content-service");
+        buses.add(bus);
+
+        EntitlementService service = new EntitlementService(BUDGET, ttlMillis);
+        ReflectionTestUtils.setField(service, "midUserShareMapper", midUserShareMapper);
+        ReflectionTestUtils.setField(service, "invalidationBus", bus);
+        service.subscribeInvalidation();
+        return service;
+    }
+
+    private void exchange(Long userId, Long shareId) {
+        mapper.insert(MidUserShare.builder().userId(userId).shareId(shareId).build());
+    }
+
+    private boolean waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
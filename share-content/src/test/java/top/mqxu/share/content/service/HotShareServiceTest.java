@@ -0,0 +1,137 @@
+package top.mqxu.share.content.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.common.invalidation.InvalidationProperties;
+import top.mqxu.share.common.invalidation.LoopbackInvalidationTransport;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.event.ShareExchangedEvent;
+import top.mqxu.share.content.domain.resp.HotShareResp;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热门分享的展示信息只在桶里有这个分享时保留，查询不访问数据库
+ */
+class HotShareServiceTest {
+
+    private final ShareMapper shareMapper = mock(ShareMapper.class);
+
+    private InvalidationBus bus;
+
+    private HotShareService service;
+
+    @BeforeEach
+    void setUp() {
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setCoalesceMs(10);
+        bus = new InvalidationBus(new LoopbackInvalidationTransport(), properties, "content-service");
+        // 每个桶只保留 2 个计数，第 3 个分享会顶替计数最小的
+        service = new HotShareService(2);
+        ReflectionTestUtils.setField(service, "shareMapper", shareMapper);
+        ReflectionTestUtils.setField(service, "invalidationBus", bus);
+        service.subscribeInvalidation();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        bus.shutdown();
+    }
+
+    @Test
+    void hotSharesAreServedFromMemory() {
+        exchange(share(1L, "a"), 3);
+        exchange(share(2L, "b"), 1);
+
+        List<HotShareResp> hot = service.getHot("24h", 10);
+
+        assertEquals(List.of(1L, 2L), hot.stream().map(HotShareResp::getShareId).toList());
+        assertEquals("a", hot.get(0).getTitle());
+        assertEquals(3L, hot.get(0).getCount());
+        verifyNoInteractions(shareMapper);
+    }
+
+    @Test
+    void infoLeavesWithTheLastBucket() {
+        exchange(share(1L, "a"), 3);
+        exchange(share(2L, "b"), 1);
+        assertEquals(2, members().size());
+
+        // 3 顶替了两个窗口里计数最小的 2，2 的展示信息随之删除
+        exchange(share(3L, "c"), 1);
+
+        assertTrue(members().containsKey(1L));
+        assertTrue(members().containsKey(3L));
+        assertEquals(2, members().size());
+        assertEquals(List.of(1L, 3L), service.getHot("1h", 10).stream().map(HotShareResp::getShareId).toList());
+        verifyNoInteractions(shareMapper);
+    }
+
+    @Test
+    void changedShareIsReloadedInTheBackground() {
+        exchange(share(1L, "a"), 1);
+        Share rejected = share(1L, "a");
+        rejected.setAuditStatus("REJECT");
+        when(shareMapper.selectBatchIds(any())).thenReturn(List.of(rejected));
+
+        bus.publish(EntityTypes.SHARE, 1L);
+
+        assertTrue(waitUntil(() -> service.getHot("1h", 10).isEmpty()));
+    }
+
+    @Test
+    void changeToShareOutsideTheBucketsIsIgnored() throws InterruptedException {
+        exchange(share(1L, "a"), 1);
+
+        bus.publish(EntityTypes.SHARE, 2L);
+        Thread.sleep(50);
+
+        verifyNoInteractions(shareMapper);
+    }
+
+    private void exchange(Share share, int times) {
+        for (int i = 0; i < times; i++) {
+            service.onExchanged(new ShareExchangedEvent(share, 100L));
+        }
+    }
+
+    private Map<?, ?> members() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(service, "members");
+    }
+
+    private static Share share(Long id, String title) {
+        return Share.builder().id(id).title(title).author("作者").price(10)
+                .auditStatus("PASS").showFlag(true).build();
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
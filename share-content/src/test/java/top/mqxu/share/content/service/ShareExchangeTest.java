@@ -0,0 +1,146 @@
+package top.mqxu.share.content.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.common.invalidation.InvalidationBus;
+import top.mqxu.share.common.invalidation.InvalidationProperties;
+import top.mqxu.share.common.invalidation.LoopbackInvalidationTransport;
+import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.content.domain.dto.ExchangeDTO;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.entity.User;
+import top.mqxu.share.content.feign.UserService;
+import top.mqxu.share.content.mapper.MidUserShareMapper;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 兑换流程：先靠 mid_user_share 的唯一键占位，再查积分、扣积分；已兑换过的不扣积分，扣分失败时删掉占位
+ */
+class ShareExchangeTest {
+
+    private static final long USER_ID = 1L;
+
+    private static final long SHARE_ID = 100L;
+
+    private TestDatabase db;
+
+    private InvalidationBus bus;
+
+    private UserService userService;
+
+    private EntitlementService entitlementService;
+
+    private ShareService shareService;
+
+    @BeforeEach
+    void setUp() {
+        db = new TestDatabase();
+        ShareMapper shareMapper = db.mapper(ShareMapper.class);
+        MidUserShareMapper midUserShareMapper = db.mapper(MidUserShareMapper.class);
+        shareMapper.insert(Share.builder().id(SHARE_ID).userId(2L).title("标题").price(10).buyCount(0).build());
+
+        bus = new InvalidationBus(new LoopbackInvalidationTransport(), new InvalidationProperties(), "content-service");
+        entitlementService = new EntitlementService(64 * 1024 * 1024, 60_000);
+        ReflectionTestUtils.setField(entitlementService, "midUserShareMapper", midUserShareMapper);
+        ReflectionTestUtils.setField(entitlementService, "invalidationBus", bus);
+
+        userService = mock(UserService.class);
+        shareService = new ShareService();
+        ReflectionTestUtils.setField(shareService, "shareMapper", shareMapper);
+        ReflectionTestUtils.setField(shareService, "midUserShareMapper", midUserShareMapper);
+        ReflectionTestUtils.setField(shareService, "userService", userService);
+        ReflectionTestUtils.setField(shareService, "entitlementService", entitlementService);
+        ReflectionTestUtils.setField(shareService, "buyCountService", new BuyCountService());
+        ReflectionTestUtils.setField(shareService, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+        db.close();
+    }
+
+    @Test
+    void firstExchangeClaimsRowThenCharges() {
+        bonus(50);
+        db.resetCounts();
+
+        shareService.exchange(exchange());
+
+        verify(userService).updateBonus(any());
+        assertEquals(1, ownedRows());
+        // 不再预先加载整个已兑换集合，也不再 COUNT 一次
+        assertTrue(db.sql.stream().noneMatch(sql -> sql.toUpperCase().contains("COUNT(")), db.sql.toString());
+        assertTrue(db.sql.stream().noneMatch(sql -> sql.contains("SELECT share_id")), db.sql.toString());
+        assertTrue(entitlementService.owns(USER_ID, SHARE_ID));
+    }
+
+    @Test
+    void repeatedExchangeIsNotChargedTwice() {
+        bonus(50);
+        shareService.exchange(exchange());
+
+        shareService.exchange(exchange());
+
+        verify(userService, times(1)).getUserFromPrimary(USER_ID);
+        verify(userService, times(1)).updateBonus(any());
+        assertEquals(1, ownedRows());
+    }
+
+    @Test
+    void insufficientBonusReleasesTheClaim() {
+        bonus(5);
+
+        assertThrows(IllegalArgumentException.class, () -> shareService.exchange(exchange()));
+
+        verify(userService, never()).updateBonus(any());
+        assertEquals(0, ownedRows());
+        assertFalse(entitlementService.owns(USER_ID, SHARE_ID));
+
+        // 积分够了以后可以重新兑换
+        bonus(50);
+        shareService.exchange(exchange());
+        assertEquals(1, ownedRows());
+    }
+
+    @Test
+    void failedChargeReleasesTheClaim() {
+        bonus(50);
+        when(userService.updateBonus(any())).thenThrow(new IllegalStateException("user-service down"));
+
+        assertThrows(IllegalStateException.class, () -> shareService.exchange(exchange()));
+
+        assertEquals(0, ownedRows());
+    }
+
+    private void bonus(int bonus) {
+        when(userService.getUserFromPrimary(USER_ID))
+                .thenReturn(new CommonResp<>(true, null, User.builder().id(USER_ID).bonus(bonus).build()));
+    }
+
+    private ExchangeDTO exchange() {
+        ExchangeDTO exchangeDTO = new ExchangeDTO();
+        exchangeDTO.setUserId(USER_ID);
+        exchangeDTO.setShareId(SHARE_ID);
+        return exchangeDTO;
+    }
+
+    private int ownedRows() {
+        return db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mid_user_share WHERE user_id = ? AND share_id = ?",
+                Integer.class, USER_ID, SHARE_ID);
+    }
+}
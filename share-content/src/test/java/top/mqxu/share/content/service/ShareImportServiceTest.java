@@ -0,0 +1,137 @@
+package top.mqxu.share.content.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.content.domain.dto.ShareRequestDTO;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.resp.ShareImportResp;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量写入和逐行写入的对比：内嵌 H2 上统计 JDBC 往返次数。
+ * MySQL 开启 rewriteBatchedStatements 后一次 executeBatch 就是一次网络往返，往返次数决定了导入的吞吐
+ */
+class ShareImportServiceTest {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private TestDatabase db;
+
+    private ShareImportService service;
+
+    @BeforeEach
+    void setUp() {
+        db = new TestDatabase();
+        service = new ShareImportService();
+        ReflectionTestUtils.setField(service, "sqlSessionFactory", db.sqlSessionFactory);
+        ReflectionTestUtils.setField(service, "shareMapper", db.mapper(ShareMapper.class));
+        ReflectionTestUtils.setField(service, "transactionTemplate", db.transactionTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "chunkSize", CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void eachChunkIsOneBatch() {
+        db.resetCounts();
+        ShareImportResp resp = service.contributeBatch(rows(1200), 1L);
+
+        assertEquals(1200, resp.getSuccess());
+        assertEquals(0, resp.getFailed());
+        assertEquals(1200, count());
+        // 500 + 500 + 200：三次 executeBatch，没有逐行的 INSERT
+        assertEquals(3, db.batches.get());
+        assertEquals(0, db.statements.get());
+    }
+
+    @Test
+    void batchNeedsFarFewerRoundTripsThanRowByRow() {
+        db.resetCounts();
+        service.contributeBatch(rows(CHUNK_SIZE), 1L);
+        int batched = db.roundTrips();
+
+        db.resetCounts();
+        ShareMapper shareMapper = db.mapper(ShareMapper.class);
+        rows(CHUNK_SIZE).forEach(row -> shareMapper.insert(Share.builder()
+                .title(row.getTitle())
+                .author(row.getAuthor())
+                .price(row.getPrice())
+                .downloadUrl(row.getDownloadUrl())
+                .build()));
+        int rowByRow = db.roundTrips();
+
+        assertEquals(1, batched);
+        assertEquals(CHUNK_SIZE, rowByRow);
+        assertTrue(rowByRow >= 10 * batched);
+    }
+
+    @Test
+    void failedChunkFallsBackRowByRow() {
+        List<ShareRequestDTO> rows = rows(10);
+        // 标题超过列宽，整块写入失败，逐行写入时只有这一行失败
+        rows.get(3).setTitle("x".repeat(100));
+
+        db.resetCounts();
+        ShareImportResp resp = service.contributeBatch(rows, 1L);
+
+        assertEquals(9, resp.getSuccess());
+        assertEquals(1, resp.getFailed());
+        assertEquals(List.of("第 4 行：写入失败：DataIntegrityViolationException"), resp.getErrors());
+        assertEquals(9, count());
+        assertEquals(1, db.batches.get());
+        assertEquals(10, db.statements.get());
+    }
+
+    @Test
+    void ndjsonLinesAreValidatedAndChunked() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            body.append("{\"author\":\"作者\",\"title\":\"标题").append(i)
+                    .append("\",\"price\":10,\"downloadUrl\":\"https://example.com\"}\n");
+        }
+        body.append("not json\n");
+        body.append("{\"author\":\"作者\",\"price\":10,\"downloadUrl\":\"https://example.com\"}\n");
+
+        db.resetCounts();
+        ShareImportResp resp = service.importNdjson(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), 1L);
+
+        assertEquals(602, resp.getTotal());
+        assertEquals(600, resp.getSuccess());
+        assertEquals(List.of("第 601 行：JSON 格式错误", "第 602 行：标题不能为空"), resp.getErrors());
+        assertEquals(2, db.batches.get());
+    }
+
+    private int count() {
+        return db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM share", Integer.class);
+    }
+
+    private List<ShareRequestDTO> rows(int n) {
+        List<ShareRequestDTO> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(ShareRequestDTO.builder()
+                    .author("作者")
+                    .title("标题" + i)
+                    .isOriginal(true)
+                    .price(10)
+                    .downloadUrl("https://example.com/" + i)
+                    .build());
+        }
+        return rows;
+    }
+}
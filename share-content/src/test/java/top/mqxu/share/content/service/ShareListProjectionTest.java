@@ -0,0 +1,157 @@
+package top.mqxu.share.content.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.content.domain.entity.Share;
+import top.mqxu.share.content.domain.resp.ShareListItem;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 列表接口的列投影：摘要在 SQL 里截断，列表项序列化后的字节数、每页的内存分配和原来返回整个实体对比
+ */
+class ShareListProjectionTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int ITERATIONS = 200;
+
+    private TestDatabase db;
+
+    private ShareMapper shareMapper;
+
+    private ShareService shareService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        db = new TestDatabase();
+        shareMapper = db.mapper(ShareMapper.class);
+        shareService = new ShareService();
+        ReflectionTestUtils.setField(shareService, "shareMapper", shareMapper);
+        ReflectionTestUtils.setField(shareService, "buyCountService", new BuyCountService());
+
+        Date now = new Date();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            shareMapper.insert(Share.builder()
+                    .id(id)
+                    .userId(1L)
+                    .title("标题" + id)
+                    .isOriginal(true)
+                    .author("作者")
+                    .cover("https://example.com/cover/" + id + ".png")
+                    .summary("摘要".repeat(300))
+                    .price(10)
+                    .downloadUrl("https://example.com/download/" + id)
+                    .buyCount(0)
+                    .showFlag(true)
+                    .auditStatus("PASS")
+                    .reason("审核通过")
+                    .createTime(now)
+                    .updateTime(now)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void summaryIsTruncatedBySql() {
+        db.resetCounts();
+        List<ShareListItem> items = shareService.getList(null, 1, PAGE_SIZE, null, 50);
+
+        assertEquals(PAGE_SIZE, items.size());
+        items.forEach(item -> assertEquals(50, item.getSummary().length()));
+        String select = db.sql.stream().filter(sql -> sql.contains("FROM share")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(select.contains("LEFT(summary, 50) AS summary"), select);
+        assertFalse(select.contains("reason"), select);
+        assertFalse(select.contains("create_time"), select);
+    }
+
+    @Test
+    void summaryLengthOnlyYieldsAFixedSetOfStatements() {
+        db.resetCounts();
+        List<ShareListItem> items = shareService.getList(null, 1, PAGE_SIZE, null, 37);
+
+        items.forEach(item -> assertEquals(37, item.getSummary().length()));
+        // 37 向上取到 50，任意长度都只会落到固定的几种 SQL 上
+        String select = db.sql.stream().filter(sql -> sql.contains("FROM share")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(select.contains("LEFT(summary, 50) AS summary"), select);
+    }
+
+    @Test
+    void summaryIsNotTruncatedWithoutLength() {
+        List<ShareListItem> items = shareService.getList(null, 1, PAGE_SIZE, null, 0);
+
+        items.forEach(item -> assertEquals(600, item.getSummary().length()));
+        // 未登录时不返回下载地址
+        items.forEach(item -> assertNull(item.getDownloadUrl()));
+    }
+
+    @Test
+    void listPayloadIsMuchSmallerThanFullEntity() throws Exception {
+        // 原来的列表接口：查询所有列，返回整个实体
+        LambdaQueryWrapper<Share> all = new LambdaQueryWrapper<Share>().orderByDesc(Share::getId);
+        byte[] before = objectMapper.writeValueAsBytes(shareMapper.selectList(Page.of(1, PAGE_SIZE), all));
+
+        byte[] after = objectMapper.writeValueAsBytes(shareService.getList(null, 1, PAGE_SIZE, null, 100));
+
+        // 一页 20 条：每条的摘要从 600 个字符减到 100 个，不再返回 reason、审核状态和时间
+        assertTrue(after.length * 3 < before.length, "before=" + before.length + " after=" + after.length);
+    }
+
+    @Test
+    void listPageAllocatesLessThanFullEntity() throws Exception {
+        LambdaQueryWrapper<Share> all = new LambdaQueryWrapper<Share>().orderByDesc(Share::getId);
+        long before = allocatedPerPage(() -> objectMapper.writeValueAsBytes(
+                shareMapper.selectList(Page.of(1, PAGE_SIZE), all)));
+        long after = allocatedPerPage(() -> objectMapper.writeValueAsBytes(
+                shareService.getList(null, 1, PAGE_SIZE, null, 100)));
+
+        System.out.printf("列表每页内存分配（查询 + 序列化，%d 条）：整个实体 %d 字节，列表项 %d 字节%n", PAGE_SIZE, before, after);
+        assertTrue(after < before, "before=" + before + " after=" + after);
+    }
+
+    /**
+     * 当前线程执行一页查询和序列化平均分配的字节数，先预热再统计
+     */
+    private static long allocatedPerPage(Callable<?> page) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ITERATIONS; i++) {
+            page.call();
+        }
+        long threadId = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            page.call();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+    }
+
+    @Test
+    void myContributeAlsoReturnsAuditColumns() {
+        List<ShareListItem> items = shareService.myContribute(1, PAGE_SIZE, 1L, 10);
+
+        assertEquals(PAGE_SIZE, items.size());
+        assertEquals("PASS", items.get(0).getAuditStatus());
+        assertEquals(10, items.get(0).getSummary().length());
+    }
+}
@@ -0,0 +1,141 @@
+package top.mqxu.share.content.service;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.mqxu.share.content.mapper.MidUserShareMapper;
+import top.mqxu.share.content.mapper.ShareMapper;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内嵌 H2 代替 content_center：share、mid_user_share 两张表，MyBatis-Plus 会话、分页和 Spring 事务，
+ * 并统计 JDBC 往返次数（一次 executeBatch 或一次单条执行算一次），记录执行过的 SQL
+ */
+class TestDatabase implements AutoCloseable {
+
+    final EmbeddedDatabase database;
+
+    final DataSource dataSource;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final SqlSessionFactory sqlSessionFactory;
+
+    final SqlSessionTemplate sqlSessionTemplate;
+
+    final TransactionTemplate transactionTemplate;
+
+    /**
+     * executeBatch 的次数
+     */
+    final AtomicInteger batches = new AtomicInteger();
+
+    /**
+     * 单条语句执行的次数
+     */
+    final AtomicInteger statements = new AtomicInteger();
+
+    /**
+     * 预编译过的 SQL
+     */
+    final List<String> sql = new CopyOnWriteArrayList<>();
+
+    TestDatabase() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE share (id BIGINT PRIMARY KEY, user_id BIGINT, title VARCHAR(80) NOT NULL, "
+                + "is_original BOOLEAN, author VARCHAR(45), cover VARCHAR(256), summary VARCHAR(1000), price INT, "
+                + "download_url VARCHAR(256), buy_count INT, show_flag BOOLEAN, audit_status VARCHAR(10), "
+                + "reason VARCHAR(200), create_time TIMESTAMP, update_time TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE mid_user_share (id BIGINT PRIMARY KEY, share_id BIGINT NOT NULL, "
+                + "user_id BIGINT NOT NULL, CONSTRAINT uk_user_share UNIQUE (user_id, share_id))");
+
+        dataSource = counting(database);
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setEnvironment(new Environment("test", new SpringManagedTransactionFactory(), dataSource));
+        configuration.addMapper(ShareMapper.class);
+        configuration.addMapper(MidUserShareMapper.class);
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.H2));
+        configuration.addInterceptor(interceptor);
+        sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+        sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    <T> T mapper(Class<T> type) {
+        return sqlSessionTemplate.getMapper(type);
+    }
+
+    int roundTrips() {
+        return batches.get() + statements.get();
+    }
+
+    void resetCounts() {
+        batches.set(0);
+        statements.set(0);
+        sql.clear();
+    }
+
+    @Override
+    public void close() {
+        database.shutdown();
+    }
+
+    private DataSource counting(DataSource target) {
+        return proxy(DataSource.class, target);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            String name = method.getName();
+            if (target instanceof Connection && "prepareStatement".equals(name)) {
+                sql.add((String) args[0]);
+            }
+            if (target instanceof Statement) {
+                if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
+                    batches.incrementAndGet();
+                } else if (name.startsWith("execute")) {
+                    statements.incrementAndGet();
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, connection);
+            }
+            if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                return proxy((Class<Statement>) method.getReturnType(), statement);
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package top.mqxu.share.content.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 有序 id 集合：功能，以及和 HashSet&lt;Long&gt; 对比每个集合占用的字节数、每秒查找次数
+ * 集合大小取一个活跃用户大致的兑换数量，字节数用当前线程的内存分配量统计（构造时不会产生垃圾对象，分配量就是集合本身）
+ */
+class LongIdSetTest {
+
+    private static final int SIZE = 200;
+
+    private static final int SETS = 2_000;
+
+    private static final int LOOKUPS = 2_000_000;
+
+    @Test
+    void ofSortsAndDeduplicates() {
+        LongIdSet set = LongIdSet.of(new long[]{30, 10, 20, 10});
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(10));
+        assertTrue(set.contains(30));
+        assertFalse(set.contains(15));
+    }
+
+    @Test
+    void withReturnsNewSetAndKeepsOriginal() {
+        LongIdSet set = LongIdSet.of(new long[]{10, 30});
+
+        LongIdSet added = set.with(20);
+
+        assertTrue(added.contains(20));
+        assertFalse(set.contains(20));
+        assertSame(added, added.with(20));
+        assertEquals(3, added.size());
+    }
+
+    @Test
+    void usesFewerBytesThanHashSetAndReportsThroughput() {
+        long[] ids = randomIds(SIZE, 1);
+
+        long idSetBytes = allocatedPerSet(() -> LongIdSet.of(ids));
+        long hashSetBytes = allocatedPerSet(() -> {
+            Set<Long> set = new HashSet<>();
+            for (long id : ids) {
+                set.add(id);
+            }
+            return set;
+        });
+
+        LongIdSet idSet = LongIdSet.of(ids);
+        Set<Long> hashSet = new HashSet<>();
+        for (long id : ids) {
+            hashSet.add(id);
+        }
+        // 一半命中、一半不命中
+        long[] probes = new long[1024];
+        long[] misses = randomIds(probes.length, 2);
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = i % 2 == 0 ? ids[i % ids.length] : misses[i];
+        }
+        double idSetLookups = lookupsPerSecond(idSet::contains, probes);
+        double hashSetLookups = lookupsPerSecond(hashSet::contains, probes);
+
+        System.out.printf("%d 个 id：LongIdSet %d 字节（估算 %d）、%.1f 万次查找/秒；HashSet<Long> %d 字节、%.1f 万次查找/秒%n",
+                SIZE, idSetBytes, idSet.estimatedBytes(), idSetLookups / 10_000, hashSetBytes, hashSetLookups / 10_000);
+        // 每个 id 8 字节加数组和对象头，EntitlementService 的内存预算按 estimatedBytes 计算，估算不能偏小太多
+        assertTrue(idSetBytes <= idSet.estimatedBytes() + 16, "measured=" + idSetBytes);
+        assertTrue(idSetBytes * 4 < hashSetBytes, "idSet=" + idSetBytes + " hashSet=" + hashSetBytes);
+    }
+
+    private static long[] randomIds(int size, long seed) {
+        Random random = new Random(seed);
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = 1_000_000_000_000_000L + random.nextInt(Integer.MAX_VALUE);
+        }
+        return ids;
+    }
+
+    /**
+     * 当前线程构造一个集合平均分配的字节数，先预热再统计
+     */
+    private static long allocatedPerSet(Supplier<?> factory) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Object[] keep = new Object[SETS];
+        for (int i = 0; i < SETS; i++) {
+            keep[i] = factory.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < SETS; i++) {
+            keep[i] = factory.get();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - start) / SETS;
+    }
+
+    /**
+     * 单线程每秒查找次数，先预热一轮
+     */
+    private static double lookupsPerSecond(LongPredicate contains, long[] probes) {
+        int hits = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits += contains.test(probes[i & (probes.length - 1)]) ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits += contains.test(probes[i & (probes.length - 1)]) ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        // 两轮都是一半命中，用结果防止查找被优化掉
+        assertEquals(LOOKUPS, hits);
+        return LOOKUPS * 1e9 / elapsed;
+    }
+}
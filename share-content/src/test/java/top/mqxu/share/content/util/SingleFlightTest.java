@@ -0,0 +1,137 @@
+package top.mqxu.share.content.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 32;
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(CALLERS);
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> {
+                    entered.countDown();
+                    return flight.load(1L, () -> {
+                        loads.incrementAndGet();
+                        // 等所有调用方都进来再返回，晚到的调用方拿复用的结果
+                        await(entered);
+                        sleep(50);
+                        return "share-1";
+                    });
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("share-1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlightSize());
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotReused() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> flight.load(1L, () -> {
+                await(release);
+                throw new IllegalStateException("db down");
+            }));
+            waitForFlight(flight);
+            Future<String> second = pool.submit(() -> flight.load(1L, () -> "unused"));
+            sleep(50);
+            release.countDown();
+
+            for (Future<String> result : List.of(first, second)) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("reloaded", flight.load(1L, () -> "reloaded"));
+    }
+
+    @Test
+    void invalidateDuringFlightStartsNewLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // 加载读到了旧数据，还没返回时数据被修改
+            Future<String> stale = pool.submit(() -> flight.load(1L, () -> {
+                await(release);
+                return "old";
+            }));
+            waitForFlight(flight);
+            flight.invalidate(1L);
+
+            // 之后的调用不等旧的加载
+            assertEquals("new", flight.load(1L, () -> "new"));
+
+            release.countDown();
+            assertEquals("old", stale.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        // 旧的结果没有放进复用缓存
+        assertNotEquals("old", flight.load(1L, () -> "newer"));
+    }
+
+    @Test
+    void invalidateDropsReusedResult() {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10_000);
+        assertEquals("v1", flight.load(1L, () -> "v1"));
+        assertEquals("v1", flight.load(1L, () -> "v2"));
+
+        flight.invalidate(1L);
+        assertEquals("v2", flight.load(1L, () -> "v2"));
+    }
+
+    private static void waitForFlight(SingleFlight<?, ?> flight) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (flight.inFlightSize() == 0 && System.currentTimeMillis() < deadline) {
+            sleep(5);
+        }
+        assertEquals(1, flight.inFlightSize());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package top.mqxu.share.gateway.accesslog;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次请求的访问日志，在事件循环线程上只填字段，格式化留给后台线程
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccessLogEntry {
+    private long timestamp;
+    private String traceId;
+    private String method;
+    private String path;
+    /**
+     * 已脱敏的查询串
+     */
+    private String query;
+    private String routeId;
+    private int status;
+    /**
+     * 从进入网关到响应头提交的耗时，主要是下游服务的处理时间
+     */
+    private long upstreamMs;
+    private long totalMs;
+    private long bytes;
+    private Long userId;
+    private String clientIp;
+}
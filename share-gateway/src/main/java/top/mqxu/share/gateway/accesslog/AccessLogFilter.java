@@ -0,0 +1,106 @@
+package top.mqxu.share.gateway.accesslog;
+
+import jakarta.annotation.Resource;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import top.mqxu.share.gateway.config.LoginUserFilter;
+import top.mqxu.share.gateway.config.TraceIdFilter;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 每个请求结束时生成一条访问日志交给 {@link AccessLogWriter}，
+ * 排在 TraceIdFilter 之后，这样 trace id 已经确定
+ */
+@Component
+public class AccessLogFilter implements Ordered, GlobalFilter {
+
+    /**
+     * 查询串里的 token、password 等参数值替换成 ***
+     */
+    private static final Pattern SENSITIVE_QUERY = Pattern.compile("(?i)((?:token|password|phone)=)[^&]*");
+
+    @Resource
+    private AccessLogWriter accessLogWriter;
+
+    @Value("${share.access-log.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        long[] committedAt = {0};
+        AtomicLong bytes = new AtomicLong();
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            committedAt[0] = System.nanoTime();
+            return Mono.empty();
+        });
+        ServerHttpResponseDecorator counting = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(Flux.from(body).doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount())));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(Flux.from(body).map(inner ->
+                        Flux.from(inner).doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))));
+            }
+        };
+        return chain.filter(exchange.mutate().response(counting).build())
+                .doFinally(signal -> {
+                    long end = System.nanoTime();
+                    long committed = committedAt[0] == 0 ? end : committedAt[0];
+                    accessLogWriter.append(build(exchange, TimeUnit.NANOSECONDS.toMillis(committed - start),
+                            TimeUnit.NANOSECONDS.toMillis(end - start), bytes.get()));
+                });
+    }
+
+    private AccessLogEntry build(ServerWebExchange exchange, long upstreamMs, long totalMs, long bytes) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        String query = request.getURI().getRawQuery();
+        InetSocketAddress remote = request.getRemoteAddress();
+        return AccessLogEntry.builder()
+                .timestamp(System.currentTimeMillis())
+                .traceId(exchange.getAttribute(TraceIdFilter.ATTRIBUTE))
+                .method(request.getMethod().name())
+                .path(request.getURI().getRawPath())
+                .query(query == null ? null : SENSITIVE_QUERY.matcher(query).replaceAll("$1***"))
+                .routeId(route == null ? null : route.getId())
+                .status(status == null ? 0 : status.value())
+                .upstreamMs(upstreamMs)
+                .totalMs(totalMs)
+                .bytes(bytes)
+                .userId(exchange.getAttribute(LoginUserFilter.USER_ID_ATTRIBUTE))
+                .clientIp(remote == null || remote.getAddress() == null ? null : remote.getAddress().getHostAddress())
+                .build();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
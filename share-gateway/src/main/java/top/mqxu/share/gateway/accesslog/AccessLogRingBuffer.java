@@ -0,0 +1,76 @@
+package top.mqxu.share.gateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列，多个事件循环线程写入，一个后台线程读取；
+ * 每个槽位带序号，写入方 CAS 抢位置，满了直接返回 false，不等待
+ */
+public class AccessLogRingBuffer {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<AccessLogEntry> slots;
+
+    /**
+     * 槽位序号：等于写位置时可写，等于写位置 + 1 时可读
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 只有消费线程读写
+     */
+    private long head;
+
+    public AccessLogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(AccessLogEntry entry) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long seq = sequences.get(index);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, entry);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+            } else if (seq < pos) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 只能由消费线程调用
+     *
+     * @return 队首元素，没有时返回 null
+     */
+    public AccessLogEntry poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        AccessLogEntry entry = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return entry;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
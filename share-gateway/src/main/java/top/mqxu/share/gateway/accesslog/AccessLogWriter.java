@@ -0,0 +1,124 @@
+package top.mqxu.share.gateway.accesslog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志的后台写入：事件循环线程只把记录放进环形队列，
+ * 后台线程每次取出一批格式化成 key=value 的单行日志写到 ACCESS_LOG，队列满时丢弃并计数
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+
+    @Value("${share.access-log.capacity:8192}")
+    private int capacity;
+
+    @Value("${share.access-log.batch-size:256}")
+    private int batchSize;
+
+    @Value("${share.access-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private AccessLogRingBuffer buffer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long reportedDropped;
+
+    private volatile boolean running = true;
+
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        buffer = new AccessLogRingBuffer(capacity);
+        worker = new Thread(this::run, "access-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    /**
+     * 在事件循环线程上调用，不会阻塞
+     */
+    public void append(AccessLogEntry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void run() {
+        StringBuilder line = new StringBuilder(256);
+        while (running) {
+            if (drain(line) == 0) {
+                reportDropped();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+        }
+        // 停止前把剩下的写完
+        while (drain(line) > 0) {
+            Thread.onSpinWait();
+        }
+        reportDropped();
+    }
+
+    private int drain(StringBuilder line) {
+        int count = 0;
+        AccessLogEntry entry;
+        while (count < batchSize && (entry = buffer.poll()) != null) {
+            line.setLength(0);
+            format(entry, line);
+            ACCESS_LOG.info(line.toString());
+            count++;
+        }
+        return count;
+    }
+
+    private void reportDropped() {
+        long current = dropped.get();
+        if (current > reportedDropped) {
+            log.warn("访问日志队列已满，丢弃 {} 条，累计 {} 条", current - reportedDropped, current);
+            reportedDropped = current;
+        }
+    }
+
+    private static void format(AccessLogEntry entry, StringBuilder line) {
+        line.append("ts=").append(Instant.ofEpochMilli(entry.getTimestamp()))
+                .append(" trace=").append(entry.getTraceId())
+                .append(" method=").append(entry.getMethod())
+                .append(" path=").append(entry.getPath());
+        if (entry.getQuery() != null) {
+            line.append(" query=").append(entry.getQuery());
+        }
+        line.append(" route=").append(entry.getRouteId())
+                .append(" status=").append(entry.getStatus())
+                .append(" upstreamMs=").append(entry.getUpstreamMs())
+                .append(" totalMs=").append(entry.getTotalMs())
+                .append(" bytes=").append(entry.getBytes())
+                .append(" user=").append(entry.getUserId())
+                .append(" ip=").append(entry.getClientIp());
+    }
+}
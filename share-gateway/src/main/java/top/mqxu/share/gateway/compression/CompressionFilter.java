@@ -0,0 +1,180 @@
+package top.mqxu.share.gateway.compression;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应压缩：客户端接受 gzip、响应是 JSON 且大小在 min-size 和 max-size 之间时在网关压缩后返回。
+ * 先把下游的响应体合并成一个 DataBuffer 才能判断大小，所以只处理 writeWith（普通响应），
+ * SSE、NDJSON 导出这类流式响应不是 application/json，不会被合并。
+ * 合并最多缓冲 max-size 字节：Content-Length 超过时直接跳过，没有 Content-Length 的响应缓冲超过时不再压缩，
+ * 已缓冲的部分和后续数据原样转发，一个大响应不会占用无限的内存。
+ * brotli 没有纯 Java 的编码实现（brotli4j 依赖本地库），只支持 gzip
+ */
+@Component
+public class CompressionFilter implements Ordered, GlobalFilter {
+
+    private static final String GZIP = "gzip";
+
+    @Resource
+    private CompressionMetrics metrics;
+
+    @Value("${share.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${share.compression.min-size:1024}")
+    private int minSize;
+
+    @Value("${share.compression.max-size:1048576}")
+    private int maxSize;
+
+    @Value("${share.compression.level:6}")
+    private int level;
+
+    @Value("${share.compression.mime-types:application/json}")
+    private List<MediaType> mimeTypes;
+
+    private GzipEncoder encoder;
+
+    @PostConstruct
+    public void init() {
+        encoder = new GzipEncoder(level);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || request.getMethod() == HttpMethod.HEAD || !acceptsGzip(request.getHeaders())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new GzipResponse(exchange.getResponse())).build());
+    }
+
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String trimmed = coding.trim();
+                int semicolon = trimmed.indexOf(';');
+                String name = semicolon < 0 ? trimmed : trimmed.substring(0, semicolon).trim();
+                if ((GZIP.equalsIgnoreCase(name) || "*".equals(name)) && !trimmed.replace(" ", "").endsWith("q=0")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean compressible(HttpHeaders headers) {
+        if (headers.getFirst(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        MediaType contentType = headers.getContentType();
+        if (contentType == null || mimeTypes.stream().noneMatch(type -> type.isCompatibleWith(contentType))) {
+            return false;
+        }
+        long length = headers.getContentLength();
+        if (length >= 0 && length < minSize) {
+            metrics.recordSkipped("too-small");
+            return false;
+        }
+        if (length > maxSize) {
+            metrics.recordSkipped("too-large");
+            return false;
+        }
+        return true;
+    }
+
+    private static long readable(List<DataBuffer> buffers) {
+        long total = 0;
+        for (DataBuffer buffer : buffers) {
+            total += buffer.readableByteCount();
+        }
+        return total;
+    }
+
+    private class GzipResponse extends ServerHttpResponseDecorator {
+
+        GzipResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!compressible(getHeaders())) {
+                return super.writeWith(body);
+            }
+            // 缓冲到结束或超过 max-size 为止：第一批的字节数不超过 max-size 说明响应已经结束，可以压缩
+            AtomicLong buffered = new AtomicLong();
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> buffered.addAndGet(buffer.readableByteCount()) > maxSize)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .switchOnFirst((first, batches) -> {
+                        List<DataBuffer> head = first.get();
+                        if (head == null) {
+                            // 空响应或出错
+                            return super.writeWith(batches.concatMapIterable(list -> list));
+                        }
+                        if (readable(head) > maxSize) {
+                            metrics.recordSkipped("too-large");
+                            return super.writeWith(batches.concatMapIterable(list -> list));
+                        }
+                        return batches.take(1).concatMap(list -> compress(bufferFactory().join(list)));
+                    })
+                    .then();
+        }
+
+        private Mono<Void> compress(DataBuffer joined) {
+            int size = joined.readableByteCount();
+            if (size < minSize) {
+                metrics.recordSkipped("too-small");
+                return super.writeWith(Mono.just(joined));
+            }
+            long start = System.nanoTime();
+            DataBuffer compressed;
+            try {
+                compressed = encoder.encode(joined, bufferFactory());
+            } finally {
+                DataBufferUtils.release(joined);
+            }
+            int compressedSize = compressed.readableByteCount();
+            metrics.recordCompressed(size, compressedSize, System.nanoTime() - start);
+
+            HttpHeaders headers = getHeaders();
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // 上游的 Transfer-Encoding: chunked 会被原样转发，和 Content-Length 同时出现是不合法的响应
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.setContentLength(compressedSize);
+            return super.writeWith(Mono.just(compressed));
+        }
+    }
+
+    /**
+     * 在 NettyWriteResponseFilter 之前包装响应
+     */
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
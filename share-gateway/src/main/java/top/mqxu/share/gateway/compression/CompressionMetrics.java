@@ -0,0 +1,69 @@
+package top.mqxu.share.gateway.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压缩的 metrics：
+ * gateway.compression.ratio 压缩后/压缩前的比例，gateway.compression.time 压缩耗时（在事件循环线程上同步执行，即 CPU 开销），
+ * gateway.compression.bytes{stage=in|out} 压缩前后的字节数，gateway.compression.skipped{reason} 没有压缩的响应数
+ */
+@Component
+public class CompressionMetrics {
+
+    private final MeterRegistry registry;
+
+    private final DistributionSummary ratio;
+
+    private final Timer time;
+
+    private final Counter bytesIn;
+
+    private final Counter bytesOut;
+
+    public CompressionMetrics(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registry = registryProvider.getIfAvailable();
+        if (registry == null) {
+            ratio = null;
+            time = null;
+            bytesIn = null;
+            bytesOut = null;
+            return;
+        }
+        ratio = DistributionSummary.builder("gateway.compression.ratio")
+                .description("压缩后大小 / 压缩前大小")
+                .publishPercentiles(0.5, 0.95)
+                .register(registry);
+        time = Timer.builder("gateway.compression.time")
+                .description("压缩耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        bytesIn = Counter.builder("gateway.compression.bytes").tag("stage", "in").register(registry);
+        bytesOut = Counter.builder("gateway.compression.bytes").tag("stage", "out").register(registry);
+    }
+
+    public void recordCompressed(int before, int after, long nanos) {
+        if (registry == null) {
+            return;
+        }
+        ratio.record((double) after / before);
+        time.record(nanos, TimeUnit.NANOSECONDS);
+        bytesIn.increment(before);
+        bytesOut.increment(after);
+    }
+
+    /**
+     * @param reason too-small 等
+     */
+    public void recordSkipped(String reason) {
+        if (registry != null) {
+            registry.counter("gateway.compression.skipped", "reason", reason).increment();
+        }
+    }
+}
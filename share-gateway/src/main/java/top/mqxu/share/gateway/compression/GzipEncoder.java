@@ -0,0 +1,90 @@
+package top.mqxu.share.gateway.compression;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * gzip 编码：每个事件循环线程复用一个 Deflater、CRC32 和中转数组，
+ * 直接从输入 DataBuffer 读、写到响应的 DataBufferFactory（Netty 池化内存）分配的输出 DataBuffer，
+ * 不为每个响应创建 GZIPOutputStream 和 byte[]
+ */
+public class GzipEncoder {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ThreadLocal<State> states;
+
+    public GzipEncoder(int level) {
+        this.states = ThreadLocal.withInitial(() -> new State(level));
+    }
+
+    /**
+     * 压缩 input，调用方负责释放 input 和返回的 DataBuffer
+     */
+    public DataBuffer encode(DataBuffer input, DataBufferFactory factory) {
+        State state = states.get();
+        Deflater deflater = state.deflater;
+        deflater.reset();
+        state.crc.reset();
+
+        int size = input.readableByteCount();
+        DataBuffer out = factory.allocateBuffer(Math.max(256, size / 4));
+        boolean success = false;
+        try {
+            out.write(HEADER);
+            try (DataBuffer.ByteBufferIterator iterator = input.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer chunk = iterator.next();
+                    state.crc.update(chunk.duplicate());
+                    deflater.setInput(chunk);
+                    while (!deflater.needsInput()) {
+                        drain(deflater, state.scratch, out);
+                    }
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(deflater, state.scratch, out);
+            }
+            writeIntLe(out, (int) state.crc.getValue());
+            writeIntLe(out, size);
+            success = true;
+            return out;
+        } finally {
+            // Deflater 还引用着 input 的内存，用完就断开
+            deflater.setInput(new byte[0]);
+            if (!success) {
+                DataBufferUtils.release(out);
+            }
+        }
+    }
+
+    private static void drain(Deflater deflater, byte[] scratch, DataBuffer out) {
+        int n = deflater.deflate(scratch);
+        if (n > 0) {
+            out.write(scratch, 0, n);
+        }
+    }
+
+    private static void writeIntLe(DataBuffer out, int value) {
+        out.write((byte) value);
+        out.write((byte) (value >>> 8));
+        out.write((byte) (value >>> 16));
+        out.write((byte) (value >>> 24));
+    }
+
+    private static final class State {
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] scratch = new byte[8192];
+
+        private State(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+    }
+}
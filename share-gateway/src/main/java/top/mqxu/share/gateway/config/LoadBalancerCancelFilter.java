@@ -0,0 +1,52 @@
+package top.mqxu.share.gateway.config;
+
+import jakarta.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import top.mqxu.share.loadbalancer.LatencyStatsLifecycle;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * 请求被取消（客户端断开、上游超时取消订阅）时，ReactiveLoadBalancerClientFilter 不会回调 onComplete，
+ * 选中实例的进行中请求数会一直不减，延迟感知负载均衡就再也不选它。
+ * 排在负载均衡之前包住后面的链路，只在先于完成/出错发生取消时补一次 DISCARD 回调
+ */
+@Component
+@ConditionalOnProperty(prefix = "share.loadbalancer.latency-aware", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LoadBalancerCancelFilter implements GlobalFilter, Ordered {
+
+    @Resource
+    private LatencyStatsLifecycle latencyStatsLifecycle;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal != SignalType.CANCEL) {
+                return;
+            }
+            // 负载均衡过滤器在同一个回调里写入这个属性并调用 onStartRequest，有值说明进行中请求数已经加过
+            Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            if (lbResponse != null && lbResponse.hasServer()) {
+                latencyStatsLifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.DISCARD, new DefaultRequest<>(), lbResponse));
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
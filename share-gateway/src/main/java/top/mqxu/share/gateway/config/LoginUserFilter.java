@@ -8,38 +8,46 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 import top.mqxu.share.gateway.util.JwtUtil;
+
+/**
+ * 登录校验：每个请求的结果由访问日志记录，这里只在 debug 级别打印，避免在事件循环线程上同步写日志
+ */
 @Component
 @Slf4j
 public class LoginUserFilter implements Ordered, GlobalFilter {
+
+    /**
+     * 交换属性里的登录用户 id，访问日志使用
+     */
+    public static final String USER_ID_ATTRIBUTE = LoginUserFilter.class.getName() + ".userId";
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
-        if (path.contains("/admin")
-                || path.contains("/hello")
+        // 管理接口（/share/admin/**）需要登录，是否是管理员由下游服务校验
+        if (path.contains("/hello")
                 || path.contains("/user-service/user/login")
                 || path.contains("/user-service/user/register")
                 || path.contains("content-service/share/notice")
-                || path.contains("content-service/share/list"))
+                || path.contains("content-service/share/list")
+                || path.contains("content-service/share/hot"))
 
         {
-            log.info("不需要登录验证，{}", path);
+            log.debug("[{}] 不需要登录验证，{}", TraceIdFilter.traceId(exchange), path);
             return chain.filter(exchange);
-        } else {
-            log.info("需要登录验证，{}", path);
         }
         String token = exchange.getRequest().getHeaders().getFirst("token");
-        log.info("会员登录验证开始，token:{}", token);
         if (token == null || token.isEmpty()) {
-            log.info("token 为空，请求被拦截！");
+            log.debug("[{}] token 为空，请求被拦截！{}", TraceIdFilter.traceId(exchange), path);
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
-        boolean validate = JwtUtil.validate(token);
-        if (validate) {
-            log.info("token 有效，放⾏请求");
+        Long userId = JwtUtil.getUserId(token);
+        if (userId != null) {
+            exchange.getAttributes().put(USER_ID_ATTRIBUTE, userId);
             return chain.filter(exchange);
         } else {
-            log.warn("token ⽆效，请求被拦截！");
+            log.debug("[{}] token ⽆效，请求被拦截！token:{}", TraceIdFilter.traceId(exchange), JwtUtil.mask(token));
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();}
     }
@@ -48,4 +56,3 @@ public class LoginUserFilter implements Ordered, GlobalFilter {
         return 0;
     }
 }
-
@@ -0,0 +1,25 @@
+package top.mqxu.share.gateway.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * share.discovery.mode=static 时关闭 Nacos 的服务发现和注册，启动和路由都不再访问注册中心。
+ * 网关不依赖 share-common（servlet），这里单独放一份，和 share-common 里的同名类保持一致
+ */
+public class StaticDiscoveryEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!"static".equals(environment.getProperty("share.discovery.mode"))) {
+            return;
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("staticDiscovery", Map.of(
+                "spring.cloud.nacos.discovery.enabled", "false",
+                "spring.cloud.service-registry.auto-registration.enabled", "false")));
+    }
+}
@@ -0,0 +1,63 @@
+package top.mqxu.share.gateway.config;
+
+import cn.hutool.core.util.RandomUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.regex.Pattern;
+
+/**
+ * 链路的起点：为每个请求生成 trace id（客户端传了合法的 X-Trace-Id 则沿用），
+ * 通过请求头传给下游服务，同时写回响应头，方便按 id 查日志。
+ * 网关跑在事件循环线程上，一个线程交替处理很多请求，不能用 MDC 传 trace id，
+ * 只放在交换属性和 Reactor Context 里，打日志时显式带上
+ */
+@Slf4j
+@Component
+public class TraceIdFilter implements Ordered, GlobalFilter {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    /**
+     * 交换属性和 Reactor Context 里的 trace id，其它过滤器打日志时使用
+     */
+    public static final String ATTRIBUTE = TraceIdFilter.class.getName() + ".traceId";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String traceId = exchange.getRequest().getHeaders().getFirst(HEADER);
+        if (traceId == null || !VALID_ID.matcher(traceId).matches()) {
+            traceId = System.currentTimeMillis() + RandomUtil.randomString(5);
+        }
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(HEADER))
+                .header(HEADER, traceId)
+                .build();
+        exchange.getResponse().getHeaders().set(HEADER, traceId);
+        exchange.getAttributes().put(ATTRIBUTE, traceId);
+
+        return chain.filter(exchange.mutate().request(request).build())
+                .contextWrite(Context.of(ATTRIBUTE, traceId));
+    }
+
+    /**
+     * 当前请求的 trace id，TraceIdFilter 之前的阶段返回 "-"
+     */
+    public static String traceId(ServerWebExchange exchange) {
+        return exchange.getAttributeOrDefault(ATTRIBUTE, "-");
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
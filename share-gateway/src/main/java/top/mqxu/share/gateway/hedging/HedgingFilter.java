@@ -0,0 +1,350 @@
+package top.mqxu.share.gateway.hedging;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.DelegatingServiceInstance;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import top.mqxu.share.gateway.config.TraceIdFilter;
+import top.mqxu.share.loadbalancer.InstanceStats;
+import top.mqxu.share.loadbalancer.InstanceStatsRegistry;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicy;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicyRegistry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * 对冲请求：路由 metadata 里 hedging 为 true、路径匹配 hedging-paths 的 GET 请求，
+ * 先发给负载均衡选出的实例，超过该路由最近延迟的 p95 还没返回时向另一个实例再发一次，用先返回的响应，另一个取消。
+ * 对冲请求受预算限制（默认不超过正常请求的 10%），下游整体变慢时不会把流量翻倍。
+ * 排在 RouteToRequestUrlFilter 之后、负载均衡之前，自己选实例、用网关的 HttpClient 转发并写回响应，
+ * 只有一个实例、或不满足条件的请求照常走后面的负载均衡和 NettyRoutingFilter。
+ * 两个请求都要等到响应体读完（body.asByteArray()）才能比较先后，赢的一方整个响应体在内存里缓冲后再写回，
+ * 只适合返回普通 JSON 的幂等接口。某个路径的响应体超过 max-body-bytes 后，这个路径在 oversized-ttl-ms 内不再对冲，
+ * 照常走 NettyRoutingFilter 流式转发
+ */
+@Slf4j
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+
+    public static final String HEDGING_ATTR = "hedging";
+
+    public static final String HEDGING_PATHS_ATTR = "hedging-paths";
+
+    @Resource
+    private HedgePolicyRegistry hedgePolicyRegistry;
+
+    @Resource
+    private LoadBalancerClientFactory clientFactory;
+
+    @Resource
+    private HttpClient httpClient;
+
+    @Resource
+    private HttpClientProperties httpClientProperties;
+
+    @Resource
+    private ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+
+    @Resource
+    private ObjectProvider<InstanceStatsRegistry> statsRegistryProvider;
+
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${share.loadbalancer.latency-aware.decay-ms:10000}")
+    private long decayMs;
+
+    @Value("${share.hedging.max-body-bytes:262144}")
+    private int maxBodyBytes;
+
+    private final Map<String, List<PathPattern>> routePatterns = new ConcurrentHashMap<>();
+
+    /**
+     * 响应体过大的路由 + 路径，过期后重新尝试对冲
+     */
+    private final LRUCache<String, Boolean> oversized;
+
+    public HedgingFilter(@Value("${share.hedging.oversized-capacity:10000}") int oversizedCapacity,
+                         @Value("${share.hedging.oversized-ttl-ms:600000}") long oversizedTtlMs) {
+        this.oversized = CacheUtil.newLRUCache(oversizedCapacity, oversizedTtlMs);
+    }
+
+    private final Set<String> meteredRoutes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (!hedgePolicyRegistry.isEnabled() || route == null || url == null || !"lb".equals(url.getScheme())
+                || exchange.getRequest().getMethod() != HttpMethod.GET || isAlreadyRouted(exchange)
+                || !hedgeable(route, exchange) || oversized.containsKey(oversizedKey(route, exchange))) {
+            return chain.filter(exchange);
+        }
+        String serviceId = url.getHost();
+        ServiceInstanceListSupplier supplier = clientFactory.getInstance(serviceId, ServiceInstanceListSupplier.class);
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = clientFactory.getInstance(serviceId);
+        if (supplier == null || loadBalancer == null) {
+            return chain.filter(exchange);
+        }
+        return supplier.get().next().defaultIfEmpty(List.of()).flatMap(instances -> {
+            if (instances.size() < 2) {
+                return chain.filter(exchange);
+            }
+            return Mono.from(loadBalancer.choose(new DefaultRequest<>())).flatMap(response -> {
+                if (!response.hasServer()) {
+                    return chain.filter(exchange);
+                }
+                return hedge(exchange, route, url, response.getServer(), instances);
+            });
+        });
+    }
+
+    private Mono<Void> hedge(ServerWebExchange exchange, Route route, URI url,
+                             ServiceInstance primary, List<ServiceInstance> instances) {
+        setAlreadyRouted(exchange);
+        HedgePolicy policy = policy(route.getId());
+        policy.onRequest();
+        Duration delay = policy.delay();
+        HttpHeaders headers = requestHeaders(exchange);
+        HttpClient client = httpClient(route);
+        long start = System.nanoTime();
+        AtomicReference<Throwable> lastError = new AtomicReference<>();
+
+        Mono<Result> primaryCall = call(client, primary, url, headers, false).doOnError(lastError::set);
+        Mono<Result> hedgeCall = Mono.delay(delay).flatMap(tick -> {
+            ServiceInstance other = pickOther(primary, instances);
+            if (other == null || !policy.tryHedge()) {
+                return Mono.empty();
+            }
+            log.debug("对冲请求：{}，{} 超过 {}ms 未返回，再发给 {}", url.getRawPath(), address(primary),
+                    delay.toMillis(), address(other));
+            return call(client, other, url, headers, true).doOnError(lastError::set);
+        });
+
+        return Mono.firstWithValue(primaryCall, hedgeCall)
+                .onErrorMap(error -> {
+                    ResponseStatusException translated = translate(lastError.get() == null ? error : lastError.get());
+                    log.warn("[{}] 转发失败：{}，{}", TraceIdFilter.traceId(exchange), url.getRawPath(),
+                            translated.getCause().toString());
+                    return translated;
+                })
+                .flatMap(result -> {
+                    policy.record(System.nanoTime() - start, result.hedge());
+                    if (result.body().length > maxBodyBytes) {
+                        log.info("{} 响应体 {} 字节，超过 {}，暂停对冲", url.getRawPath(), result.body().length, maxBodyBytes);
+                        oversized.put(oversizedKey(route, exchange), Boolean.TRUE);
+                    }
+                    return write(exchange, result);
+                });
+    }
+
+    /**
+     * 向一个实例发请求，读完整个响应体；同时维护负载均衡用的进行中请求数和 EWMA 延迟，
+     * 对冲输掉被取消的请求只减进行中请求数，不记延迟
+     */
+    private Mono<Result> call(HttpClient client, ServiceInstance instance, URI url, HttpHeaders headers, boolean hedge) {
+        URI target = LoadBalancerUriTools.reconstructURI(
+                new DelegatingServiceInstance(instance, instance.isSecure() ? "https" : "http"), url);
+        InstanceStatsRegistry statsRegistry = statsRegistryProvider.getIfAvailable();
+        return Mono.defer(() -> {
+            InstanceStats stats = statsRegistry == null ? null : statsRegistry.get(instance);
+            if (stats != null) {
+                stats.start();
+            }
+            long start = System.nanoTime();
+            return client.headers(h -> headers.forEach(h::add))
+                    .get()
+                    .uri(target)
+                    .responseSingle((response, body) -> body.asByteArray()
+                            .defaultIfEmpty(new byte[0])
+                            .map(bytes -> {
+                                HttpHeaders responseHeaders = new HttpHeaders();
+                                response.responseHeaders().forEach(e -> responseHeaders.add(e.getKey(), e.getValue()));
+                                return new Result(response.status().code(), responseHeaders, bytes, target, hedge);
+                            }))
+                    .doOnError(error -> log.debug("请求 {} 失败：{}", target, error.toString()))
+                    .doOnSuccess(result -> {
+                        if (stats != null) {
+                            stats.record(System.nanoTime() - start, decayMs * 1_000_000);
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (stats != null) {
+                            stats.finish();
+                        }
+                    });
+        });
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Result result) {
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, result.url());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setRawStatusCode(result.status());
+        HttpHeaders filtered = HttpHeadersFilter.filter(headersFiltersProvider.getIfAvailable(List::of),
+                result.headers(), exchange, HttpHeadersFilter.Type.RESPONSE);
+        response.getHeaders().putAll(filtered);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(result.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(result.body())));
+    }
+
+    private boolean hedgeable(Route route, ServerWebExchange exchange) {
+        if (!Boolean.parseBoolean(String.valueOf(route.getMetadata().get(HEDGING_ATTR)))) {
+            return false;
+        }
+        List<PathPattern> patterns = routePatterns.computeIfAbsent(route.getId(),
+                id -> parsePatterns(route.getMetadata().get(HEDGING_PATHS_ATTR)));
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String oversizedKey(Route route, ServerWebExchange exchange) {
+        return route.getId() + " " + exchange.getRequest().getPath().pathWithinApplication().value();
+    }
+
+    private static List<PathPattern> parsePatterns(Object value) {
+        List<PathPattern> patterns = new ArrayList<>();
+        if (value == null) {
+            return patterns;
+        }
+        for (String path : String.valueOf(value).split(",")) {
+            if (!path.isBlank()) {
+                patterns.add(PathPatternParser.defaultInstance.parse(path.trim()));
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * 和 NettyRoutingFilter 一样按路由 metadata 覆盖连接超时、响应超时，没有配置时用 spring.cloud.gateway.httpclient 的全局值
+     */
+    private HttpClient httpClient(Route route) {
+        HttpClient client = httpClient;
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(String.valueOf(connectTimeout)));
+        }
+        Object responseTimeout = route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+        Duration timeout = responseTimeout != null
+                ? Duration.ofMillis(Long.parseLong(String.valueOf(responseTimeout)))
+                : httpClientProperties.getResponseTimeout();
+        if (timeout != null && !timeout.isNegative()) {
+            client = client.responseTimeout(timeout);
+        }
+        return client;
+    }
+
+    /**
+     * 请求头经过网关的 HttpHeadersFilter（去掉逐跳头、加上 X-Forwarded-*），和正常转发一致
+     */
+    private HttpHeaders requestHeaders(ServerWebExchange exchange) {
+        HttpHeaders filtered = HttpHeadersFilter.filterRequest(headersFiltersProvider.getIfAvailable(List::of), exchange);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(filtered);
+        headers.remove(HttpHeaders.HOST);
+        return headers;
+    }
+
+    private static ServiceInstance pickOther(ServiceInstance primary, List<ServiceInstance> instances) {
+        List<ServiceInstance> others = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!address(instance).equals(address(primary))) {
+                others.add(instance);
+            }
+        }
+        return others.isEmpty() ? null : others.get(ThreadLocalRandom.current().nextInt(others.size()));
+    }
+
+    private static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 响应超时、连接超时返回 504，其它错误（连接被拒绝等）返回 502
+     */
+    private static ResponseStatusException translate(Throwable error) {
+        if (error instanceof ReadTimeoutException || error instanceof TimeoutException
+                || error instanceof ConnectTimeoutException) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "下游服务响应超时", error);
+        }
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "下游服务不可用", error);
+    }
+
+    private HedgePolicy policy(String routeId) {
+        HedgePolicy policy = hedgePolicyRegistry.get(routeId);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null && meteredRoutes.add(routeId)) {
+            FunctionCounter.builder("gateway.hedge.sent", policy, HedgePolicy::getHedged)
+                    .tag("route", routeId).register(meterRegistry);
+            FunctionCounter.builder("gateway.hedge.won", policy, HedgePolicy::getHedgeWon)
+                    .tag("route", routeId).register(meterRegistry);
+            FunctionCounter.builder("gateway.hedge.budget-exhausted", policy, HedgePolicy::getBudgetExhausted)
+                    .tag("route", routeId).register(meterRegistry);
+        }
+        return policy;
+    }
+
+    private record Result(int status, HttpHeaders headers, byte[] body, URI url, boolean hedge) {
+    }
+}
@@ -31,23 +31,52 @@ public class JwtUtil {
         payload.put("id", id);
         payload.put("phone", phone);
         String token = JWTUtil.createToken(payload, KEY.getBytes());
-        log.info("⽣成 JWT token：{}", token);
+        log.debug("⽣成 JWT token：{}", mask(token));
         return token;
     }
     public static boolean validate(String token) {
         JWT jwt = JWTUtil.parseToken(token).setKey(KEY.getBytes());
         // validate包含了verify
         boolean validate = jwt.validate(0);
-        log.info("JWT token 校验结果：{}", validate);
+        log.debug("JWT token 校验结果：{}", validate);
         return validate;
     }
+
+    /**
+     * 校验 token 并取出用户 id，只解析一次
+     *
+     * @return token 无效或格式错误时返回 null
+     */
+    public static Long getUserId(String token) {
+        try {
+            JWT jwt = JWTUtil.parseToken(token).setKey(KEY.getBytes());
+            if (!jwt.validate(0)) {
+                return null;
+            }
+            Object id = jwt.getPayload("id");
+            return id == null ? null : Long.valueOf(id.toString());
+        } catch (RuntimeException e) {
+            log.debug("JWT token 解析失败：{}", mask(token));
+            return null;
+        }
+    }
+
+    /**
+     * 日志里的 token 只保留首尾几位
+     */
+    public static String mask(String token) {
+        if (token == null || token.length() <= 12) {
+            return "***";
+        }
+        return token.substring(0, 6) + "***" + token.substring(token.length() - 6);
+    }
     public static JSONObject getJSONObject(String token) {
         JWT jwt = JWTUtil.parseToken(token).setKey(KEY.getBytes());
         JSONObject payloads = jwt.getPayloads();
         payloads.remove(JWTPayload.ISSUED_AT);
         payloads.remove(JWTPayload.EXPIRES_AT);
         payloads.remove(JWTPayload.NOT_BEFORE);
-        log.info("根据 token 获取原始内容：{}", payloads);
+        log.debug("根据 token 获取原始内容：{}", payloads);
         return payloads;
     }
     public static void main(String[] args) {
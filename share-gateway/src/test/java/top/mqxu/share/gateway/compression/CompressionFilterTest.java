@@ -0,0 +1,153 @@
+package top.mqxu.share.gateway.compression;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 网关压缩过滤器：min-size 和 max-size 之间的 JSON 压缩，超过 max-size 的（不论有没有 Content-Length）原样转发
+ */
+class CompressionFilterTest {
+
+    private static final int MIN_SIZE = 1024;
+
+    private static final int MAX_SIZE = 16 * 1024;
+
+    private static final int CHUNK = 4 * 1024;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(registry);
+        filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "metrics", new CompressionMetrics(provider));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minSize", MIN_SIZE);
+        ReflectionTestUtils.setField(filter, "maxSize", MAX_SIZE);
+        ReflectionTestUtils.setField(filter, "level", 6);
+        ReflectionTestUtils.setField(filter, "mimeTypes", List.of(MediaType.APPLICATION_JSON));
+        filter.init();
+    }
+
+    @Test
+    void chunkedResponseWithinMaxSizeIsCompressed() throws IOException {
+        byte[] body = body(3 * CHUNK);
+
+        MockServerHttpResponse response = run(body, false);
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] sent = bytes(response);
+        assertEquals(sent.length, response.getHeaders().getContentLength());
+        assertArrayEquals(body, gunzip(sent));
+    }
+
+    @Test
+    void chunkedResponseOverMaxSizeIsForwardedUncompressed() {
+        byte[] body = body(MAX_SIZE + 3 * CHUNK);
+
+        MockServerHttpResponse response = run(body, false);
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, bytes(response));
+        assertEquals(1, registry.counter("gateway.compression.skipped", "reason", "too-large").count());
+    }
+
+    @Test
+    void declaredLengthOverMaxSizeIsSkippedWithoutBuffering() {
+        byte[] body = body(MAX_SIZE + CHUNK);
+
+        MockServerHttpResponse response = run(body, true);
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, bytes(response));
+        assertEquals(1, registry.counter("gateway.compression.skipped", "reason", "too-large").count());
+    }
+
+    @Test
+    void smallResponseIsNotCompressed() {
+        byte[] body = body(MIN_SIZE / 2);
+
+        MockServerHttpResponse response = run(body, false);
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, bytes(response));
+    }
+
+    /**
+     * 下游按 CHUNK 分段写出 body
+     *
+     * @param declareLength 是否带 Content-Length
+     */
+    private MockServerHttpResponse run(byte[] body, boolean declareLength) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/share/list")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        GatewayFilterChain chain = downstream -> {
+            HttpHeaders headers = downstream.getResponse().getHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (declareLength) {
+                headers.setContentLength(body.length);
+            }
+            DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+            return downstream.getResponse().writeWith(Flux.range(0, (body.length + CHUNK - 1) / CHUNK)
+                    .map(i -> factory.wrap(Arrays.copyOfRange(body, i * CHUNK, Math.min(body.length, (i + 1) * CHUNK)))));
+        };
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange.getResponse();
+    }
+
+    private static byte[] bytes(MockServerHttpResponse response) {
+        DataBuffer joined = DataBufferUtils.join(response.getBody()).block(Duration.ofSeconds(5));
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        DataBufferUtils.release(joined);
+        return bytes;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] body(int size) {
+        StringBuilder json = new StringBuilder("{\"data\":\"");
+        while (json.length() < size - 2) {
+            json.append("share-").append(json.length() % 97).append(' ');
+        }
+        json.setLength(size - 2);
+        return json.append("\"}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
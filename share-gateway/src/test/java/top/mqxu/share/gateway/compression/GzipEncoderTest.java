@@ -0,0 +1,118 @@
+package top.mqxu.share.gateway.compression;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * gzip 编码的往返校验：编码结果用 JDK 的 GZIPInputStream 解压后必须和输入一致，
+ * 覆盖单个 DataBuffer、超过中转数组的大输入、以及网关合并响应时产生的多段 CompositeByteBuf
+ */
+class GzipEncoderTest {
+
+    private final GzipEncoder encoder = new GzipEncoder(6);
+
+    private final NettyDataBufferFactory nettyFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void singleBufferRoundTrip() throws IOException {
+        byte[] json = json(200);
+
+        assertArrayEquals(json, roundTrip(json, new DefaultDataBufferFactory()));
+        assertArrayEquals(json, roundTrip(json, nettyFactory));
+    }
+
+    @Test
+    void inputLargerThanScratchRoundTrip() throws IOException {
+        // 随机字节几乎不可压缩，输出远大于 8KB 的中转数组和预分配的输出容量，要多轮 deflate 和扩容
+        byte[] random = new byte[300 * 1024];
+        new Random(1).nextBytes(random);
+        byte[] json = json(5000);
+
+        assertArrayEquals(random, roundTrip(random, nettyFactory));
+        assertArrayEquals(json, roundTrip(json, nettyFactory));
+    }
+
+    @Test
+    void compositeBufferRoundTrip() throws IOException {
+        byte[] json = json(2000);
+        // 模拟下游分多次写出的响应体，合并后是多段的 CompositeByteBuf
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < json.length; offset += 3000) {
+            int length = Math.min(3000, json.length - offset);
+            chunks.add(nettyFactory.allocateBuffer(length).write(json, offset, length));
+        }
+        DataBuffer joined = nettyFactory.join(chunks);
+        assertTrue(((NettyDataBuffer) joined).getNativeBuffer().nioBufferCount() > 1);
+
+        DataBuffer compressed = encoder.encode(joined, nettyFactory);
+        DataBufferUtils.release(joined);
+
+        assertArrayEquals(json, gunzip(compressed));
+    }
+
+    @Test
+    void encoderIsReusedAcrossResponses() throws IOException {
+        byte[] first = json(500);
+        byte[] second = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(first, roundTrip(first, nettyFactory));
+        assertArrayEquals(second, roundTrip(second, nettyFactory));
+        assertArrayEquals(new byte[0], roundTrip(new byte[0], nettyFactory));
+    }
+
+    private byte[] roundTrip(byte[] input, DataBufferFactory factory) throws IOException {
+        DataBuffer buffer = factory.allocateBuffer(Math.max(1, input.length)).write(input);
+        DataBuffer compressed;
+        try {
+            compressed = encoder.encode(buffer, factory);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        return gunzip(compressed);
+    }
+
+    /**
+     * 解压并释放 compressed
+     */
+    private static byte[] gunzip(DataBuffer compressed) throws IOException {
+        byte[] bytes = new byte[compressed.readableByteCount()];
+        compressed.read(bytes);
+        DataBufferUtils.release(compressed);
+        if (compressed instanceof NettyDataBuffer netty) {
+            assertEquals(0, netty.getNativeBuffer().refCnt());
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] json(int items) {
+        StringBuilder json = new StringBuilder("{\"success\":true,\"data\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"title\":\"分享标题").append(i).append("\",\"price\":").append(i % 50).append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,241 @@
+package top.mqxu.share.gateway.hedging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import top.mqxu.share.loadbalancer.InstanceStatsRegistry;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicy;
+import top.mqxu.share.loadbalancer.hedge.HedgePolicyRegistry;
+import top.mqxu.share.loadbalancer.hedge.HedgeProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 两个桩实例：负载均衡总是选中的慢实例（500ms 才返回）和一个正常实例，用真实的 HTTP 请求走完对冲的整个过程
+ */
+class HedgingFilterTest {
+
+    private static final String SERVICE_ID = "content-service";
+
+    private static final long SLOW_MS = 500;
+
+    private static final int MAX_BODY_BYTES = 64;
+
+    private DisposableServer slowServer;
+
+    private DisposableServer fastServer;
+
+    private final HttpClient httpClient = HttpClient.create();
+
+    private final AtomicInteger slowCancelled = new AtomicInteger();
+
+    private final Queue<Long> slowArrivals = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Long> fastArrivals = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger chainCalls = new AtomicInteger();
+
+    private final InstanceStatsRegistry statsRegistry = new InstanceStatsRegistry();
+
+    private ServiceInstance slow;
+
+    private HedgePolicyRegistry policyRegistry;
+
+    @BeforeEach
+    void setUp() {
+        slowServer = HttpServer.create().port(0)
+                .route(routes -> routes.get("/share/{name}", (request, response) -> {
+                    slowArrivals.add(System.nanoTime());
+                    return response.sendString(Mono.delay(Duration.ofMillis(SLOW_MS)).map(tick -> "slow")
+                            .doOnCancel(slowCancelled::incrementAndGet));
+                }))
+                .bindNow();
+        fastServer = HttpServer.create().port(0)
+                .route(routes -> routes.get("/share/{name}", (request, response) -> {
+                    fastArrivals.add(System.nanoTime());
+                    String body = "big".equals(request.param("name")) ? "x".repeat(MAX_BODY_BYTES * 2) : "fast";
+                    return response.sendString(Mono.just(body));
+                }))
+                .bindNow();
+        slow = new DefaultServiceInstance("slow", SERVICE_ID, "localhost", slowServer.port(), false);
+        // 先建好连接，第一次请求的耗时不算进对冲延迟
+        httpClient.get().uri("http://localhost:" + fastServer.port() + "/share/warm-up")
+                .responseContent().aggregate().asString().block(Duration.ofSeconds(5));
+        fastArrivals.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowServer.disposeNow();
+        fastServer.disposeNow();
+    }
+
+    @Test
+    void hedgeFiresAfterPercentileAndFasterResponseWins() {
+        HedgingFilter filter = filter(1, 10);
+        HedgePolicy policy = policyRegistry.get("route-content");
+        for (int i = 0; i < 100; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(80), false);
+        }
+        long delayMs = policy.delay().toMillis();
+
+        MockServerWebExchange exchange = exchange("/share/list");
+        filter.filter(exchange, chain()).block(Duration.ofSeconds(5));
+        long end = System.nanoTime();
+
+        assertEquals("fast", exchange.getResponse().getBodyAsString().block());
+        // 时间从慢实例收到主请求算起，不算客户端第一次请求的初始化
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(end - slowArrivals.peek());
+        assertTrue(elapsedMs < SLOW_MS, String.valueOf(elapsedMs));
+        // 对冲请求在 p95 之后才发出
+        long hedgeAfterMs = TimeUnit.NANOSECONDS.toMillis(fastArrivals.peek() - slowArrivals.peek());
+        assertTrue(hedgeAfterMs >= delayMs - 10, hedgeAfterMs + " < " + delayMs);
+        assertEquals(1, policy.getHedged());
+        assertEquals(1, policy.getHedgeWon());
+        assertEquals(0, chainCalls.get());
+        // 慢实例上的请求被取消，进行中请求数归零
+        assertTrue(waitUntil(() -> slowCancelled.get() == 1));
+        assertEquals(0, statsRegistry.get(slow).getInFlight());
+    }
+
+    @Test
+    void budgetStopsHedgesOnceExhausted() {
+        HedgingFilter filter = filter(0.5, 1);
+        HedgePolicy policy = policyRegistry.get("route-content");
+        // 额度最多攒到 budget-max = 1
+        for (int i = 0; i < 10; i++) {
+            policy.onRequest();
+        }
+
+        assertEquals("fast", send(filter, "/share/list"));
+        assertEquals("slow", send(filter, "/share/list"));
+
+        assertEquals(1, policy.getHedged());
+        assertEquals(1, policy.getBudgetExhausted());
+        assertEquals(1, fastArrivals.size());
+    }
+
+    @Test
+    void oversizedResponseTurnsHedgingOffForThePath() {
+        HedgingFilter filter = filter(1, 10);
+
+        assertEquals(MAX_BODY_BYTES * 2, send(filter, "/share/big").length());
+        assertEquals(0, chainCalls.get());
+
+        // 同一路径之后走普通转发，其它路径照常对冲
+        send(filter, "/share/big");
+        assertEquals(1, chainCalls.get());
+        assertEquals("fast", send(filter, "/share/list"));
+        assertEquals(1, chainCalls.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private HedgingFilter filter(double budgetRatio, double budgetMax) {
+        HedgeProperties properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setInitialDelayMs(50);
+        properties.setBudgetRatio(budgetRatio);
+        properties.setBudgetMax(budgetMax);
+        policyRegistry = new HedgePolicyRegistry(properties);
+
+        ServiceInstance fast = new DefaultServiceInstance("fast", SERVICE_ID, "localhost", fastServer.port(), false);
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = request -> Mono.just(new DefaultResponse(slow));
+        LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance(SERVICE_ID, ServiceInstanceListSupplier.class))
+                .thenReturn(ServiceInstanceListSuppliers.from(SERVICE_ID, slow, fast));
+        when(clientFactory.getInstance(SERVICE_ID)).thenReturn(loadBalancer);
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable(any())).thenReturn(List.of());
+        ObjectProvider<InstanceStatsRegistry> statsProvider = mock(ObjectProvider.class);
+        when(statsProvider.getIfAvailable()).thenReturn(statsRegistry);
+
+        HedgingFilter filter = new HedgingFilter(100, 60_000);
+        ReflectionTestUtils.setField(filter, "hedgePolicyRegistry", policyRegistry);
+        ReflectionTestUtils.setField(filter, "clientFactory", clientFactory);
+        ReflectionTestUtils.setField(filter, "httpClient", httpClient);
+        ReflectionTestUtils.setField(filter, "httpClientProperties", new HttpClientProperties());
+        ReflectionTestUtils.setField(filter, "headersFiltersProvider", headersFilters);
+        ReflectionTestUtils.setField(filter, "statsRegistryProvider", statsProvider);
+        ReflectionTestUtils.setField(filter, "meterRegistryProvider", mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(filter, "decayMs", 10_000L);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", MAX_BODY_BYTES);
+        return filter;
+    }
+
+    private String send(HedgingFilter filter, String path) {
+        MockServerWebExchange exchange = exchange(path);
+        filter.filter(exchange, chain()).block(Duration.ofSeconds(5));
+        return exchange.getResponse().getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    private MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        Route route = Route.async()
+                .id("route-content")
+                .uri(URI.create("lb://" + SERVICE_ID))
+                .predicate(e -> true)
+                .metadata(Map.of(HedgingFilter.HEDGING_ATTR, true))
+                .build();
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("lb://" + SERVICE_ID + path));
+        return exchange;
+    }
+
+    private GatewayFilterChain chain() {
+        return exchange -> {
+            chainCalls.incrementAndGet();
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package top.mqxu.share.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务实例的统计：进行中的请求数、按时间衰减的 EWMA 延迟
+ */
+public class InstanceStats {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * EWMA 延迟（纳秒），0 表示还没有样本
+     */
+    private double ewmaNanos;
+
+    private long lastUpdateNanos;
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    public void finish() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * 记录一次延迟，离上次记录越久，旧值的权重越小
+     *
+     * @param latencyNanos 本次延迟
+     * @param decayNanos   衰减时间常数
+     */
+    public synchronized void record(long latencyNanos, long decayNanos) {
+        long now = System.nanoTime();
+        if (ewmaNanos == 0) {
+            ewmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-(double) Math.max(0, now - lastUpdateNanos) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastUpdateNanos = now;
+    }
+}
@@ -0,0 +1,21 @@
+package top.mqxu.share.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 所有服务实例的统计，key 为 serviceId + host:port
+ */
+public class InstanceStatsRegistry {
+
+    private final ConcurrentHashMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public InstanceStats get(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), k -> new InstanceStats());
+    }
+
+    private String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+}
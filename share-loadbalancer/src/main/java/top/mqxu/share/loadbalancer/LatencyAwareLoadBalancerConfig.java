@@ -0,0 +1,30 @@
+package top.mqxu.share.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 所有负载均衡客户端默认使用 {@link LatencyAwareLoadBalancer}，
+ * share.loadbalancer.latency-aware.enabled=false 时退回默认的轮询
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "share.loadbalancer.latency-aware", name = "enabled", havingValue = "true", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerClientConfiguration.class)
+public class LatencyAwareLoadBalancerConfig {
+
+    @Bean
+    public InstanceStatsRegistry instanceStatsRegistry() {
+        return new InstanceStatsRegistry();
+    }
+
+    @Bean
+    public LatencyStatsLifecycle latencyStatsLifecycle(
+            InstanceStatsRegistry instanceStatsRegistry,
+            @Value("${share.loadbalancer.latency-aware.decay-ms:10000}") long decayMs,
+            @Value("${share.loadbalancer.latency-aware.failure-penalty-ms:2000}") long failurePenaltyMs) {
+        return new LatencyStatsLifecycle(instanceStatsRegistry, decayMs * 1_000_000, failurePenaltyMs * 1_000_000);
+    }
+}
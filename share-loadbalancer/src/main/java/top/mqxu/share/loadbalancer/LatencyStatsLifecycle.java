@@ -0,0 +1,78 @@
+package top.mqxu.share.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+/**
+ * 网关和 Feign 每次经过负载均衡的请求都会回调这里，用来统计实例的进行中请求数和延迟。
+ * 网关的负载均衡过滤器在请求被取消（客户端断开）时不会回调 onComplete，
+ * 由网关自己在取消时以 DISCARD 状态补一次回调，只减进行中请求数、不记延迟样本
+ */
+public class LatencyStatsLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    /**
+     * EWMA 衰减时间常数
+     */
+    private final long decayNanos;
+
+    /**
+     * 失败的请求按这个延迟记录，让出错的实例也少分到请求
+     */
+    private final long failurePenaltyNanos;
+
+    public LatencyStatsLifecycle(InstanceStatsRegistry statsRegistry, long decayNanos, long failurePenaltyNanos) {
+        this.statsRegistry = statsRegistry;
+        this.decayNanos = decayNanos;
+        this.failurePenaltyNanos = failurePenaltyNanos;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(System.nanoTime());
+        }
+        if (lbResponse.hasServer()) {
+            statsRegistry.get(lbResponse.getServer()).start();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats stats = statsRegistry.get(lbResponse.getServer());
+        stats.finish();
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+
+        long latency = 0;
+        if (completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext context
+                && context.getRequestStartTime() > 0) {
+            latency = System.nanoTime() - context.getRequestStartTime();
+        }
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        if (latency > 0) {
+            stats.record(latency, decayNanos);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 快照文件里的一个服务实例
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InstanceRecord {
+
+    private String instanceId;
+
+    private String host;
+
+    private Integer port;
+
+    private Boolean secure;
+
+    private Map<String, String> metadata;
+
+    public static InstanceRecord of(ServiceInstance instance) {
+        return InstanceRecord.builder()
+                .instanceId(instance.getInstanceId())
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .secure(instance.isSecure())
+                .metadata(instance.getMetadata() == null ? null : new LinkedHashMap<>(instance.getMetadata()))
+                .build();
+    }
+
+    public ServiceInstance toInstance(String serviceId) {
+        String id = instanceId == null ? host + ":" + port : instanceId;
+        return new DefaultServiceInstance(id, serviceId, host, port, Boolean.TRUE.equals(secure),
+                metadata == null ? new LinkedHashMap<>() : metadata);
+    }
+}
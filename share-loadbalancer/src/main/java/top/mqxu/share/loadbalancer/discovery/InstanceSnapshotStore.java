@@ -0,0 +1,183 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务实例的本地快照：启动时从文件加载，查询只读内存，
+ * 后台线程定时从注册中心刷新，列表有变化时写回文件
+ * 注册中心返回空列表或出错时保留上一次的列表，注册中心挂了也能继续路由
+ */
+@Slf4j
+public class InstanceSnapshotStore {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final SnapshotDiscoveryProperties properties;
+
+    private final Path snapshotFile;
+
+    /**
+     * 注册中心，static 模式下为 null
+     */
+    private final DiscoveryClient discoveryClient;
+
+    /**
+     * 服务名 -> 最近一次的实例列表
+     */
+    private final ConcurrentHashMap<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+    /**
+     * 需要定时刷新的服务名，被查询过就加入
+     */
+    private final Map<String, Boolean> watched = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    public InstanceSnapshotStore(SnapshotDiscoveryProperties properties, Path snapshotFile, DiscoveryClient discoveryClient) {
+        this.properties = properties;
+        this.snapshotFile = snapshotFile;
+        this.discoveryClient = properties.isStatic() ? null : discoveryClient;
+        load();
+        properties.getStaticInstances().forEach((serviceId, addresses) ->
+                instances.put(serviceId, parse(serviceId, addresses)));
+        if (this.discoveryClient == null) {
+            this.scheduler = null;
+            return;
+        }
+        instances.keySet().forEach(serviceId -> watched.put(serviceId, Boolean.TRUE));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动后立即刷新一次，不阻塞启动
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, properties.getRefreshIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 最近一次的实例列表，没有记录时返回 null
+     */
+    public List<ServiceInstance> get(String serviceId) {
+        if (scheduler != null) {
+            watched.putIfAbsent(serviceId, Boolean.TRUE);
+        }
+        return instances.get(serviceId);
+    }
+
+    /**
+     * 用注册中心查到的列表更新快照，空列表不覆盖已有的记录
+     */
+    public void update(String serviceId, List<ServiceInstance> latest) {
+        if (latest == null || latest.isEmpty()) {
+            return;
+        }
+        List<ServiceInstance> previous = instances.put(serviceId, List.copyOf(latest));
+        if (previous == null || !sameAddresses(previous, latest)) {
+            log.info("服务实例变化：{}，{}", serviceId, latest.stream().map(i -> i.getHost() + ":" + i.getPort()).toList());
+            save();
+        }
+    }
+
+    public boolean isStatic() {
+        return discoveryClient == null;
+    }
+
+    private void refresh() {
+        for (String serviceId : watched.keySet()) {
+            try {
+                List<ServiceInstance> latest = discoveryClient.getInstances(serviceId);
+                if (latest.isEmpty() && instances.containsKey(serviceId)) {
+                    log.warn("注册中心没有返回 {} 的实例，继续使用快照", serviceId);
+                }
+                update(serviceId, latest);
+            } catch (Exception e) {
+                log.warn("从注册中心刷新 {} 失败，继续使用快照：{}", serviceId, e.toString());
+            }
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try {
+            Map<String, List<InstanceRecord>> records = OBJECT_MAPPER.readValue(snapshotFile.toFile(),
+                    new TypeReference<Map<String, List<InstanceRecord>>>() {
+                    });
+            records.forEach((serviceId, list) ->
+                    instances.put(serviceId, list.stream().map(record -> record.toInstance(serviceId)).toList()));
+            log.info("从快照加载服务实例：{}，服务：{}", snapshotFile, records.keySet());
+        } catch (IOException e) {
+            log.warn("读取服务实例快照失败：{}，{}", snapshotFile, e.toString());
+        }
+    }
+
+    /**
+     * 先写临时文件再改名，进程中途退出也不会留下半个文件
+     */
+    private synchronized void save() {
+        Map<String, List<InstanceRecord>> records = new TreeMap<>();
+        instances.forEach((serviceId, list) -> records.put(serviceId, list.stream().map(InstanceRecord::of).toList()));
+        try {
+            Path dir = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, snapshotFile.getFileName().toString(), ".tmp");
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), records);
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入服务实例快照失败：{}，{}", snapshotFile, e.toString());
+        }
+    }
+
+    private boolean sameAddresses(List<ServiceInstance> a, List<ServiceInstance> b) {
+        return addresses(a).equals(addresses(b));
+    }
+
+    private Map<String, Map<String, String>> addresses(List<ServiceInstance> list) {
+        Map<String, Map<String, String>> result = new TreeMap<>();
+        list.forEach(i -> result.put(i.getHost() + ":" + i.getPort(),
+                i.getMetadata() == null ? Map.of() : new TreeMap<>(i.getMetadata())));
+        return result;
+    }
+
+    private List<ServiceInstance> parse(String serviceId, List<String> addresses) {
+        List<ServiceInstance> result = new ArrayList<>();
+        for (String address : addresses) {
+            int colon = address.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("static-instances 的地址格式应为 host:port：" + address);
+            }
+            result.add(InstanceRecord.builder()
+                    .host(address.substring(0, colon))
+                    .port(Integer.parseInt(address.substring(colon + 1)))
+                    .metadata(new LinkedHashMap<>())
+                    .build()
+                    .toInstance(serviceId));
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
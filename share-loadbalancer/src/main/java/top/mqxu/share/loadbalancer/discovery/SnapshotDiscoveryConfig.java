@@ -0,0 +1,29 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 所有负载均衡客户端从本地快照取实例列表，见 {@link InstanceSnapshotStore}
+ */
+@Configuration
+@EnableConfigurationProperties(SnapshotDiscoveryProperties.class)
+@LoadBalancerClients(defaultConfiguration = SnapshotLoadBalancerClientConfiguration.class)
+public class SnapshotDiscoveryConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public InstanceSnapshotStore instanceSnapshotStore(SnapshotDiscoveryProperties properties,
+                                                       ObjectProvider<DiscoveryClient> discoveryClientProvider,
+                                                       @Value("${spring.application.name:application}") String applicationName) {
+        String file = properties.getSnapshotFile() == null
+                ? "./discovery/" + applicationName + "-instances.json" : properties.getSnapshotFile();
+        return new InstanceSnapshotStore(properties, Path.of(file), discoveryClientProvider.getIfAvailable());
+    }
+}
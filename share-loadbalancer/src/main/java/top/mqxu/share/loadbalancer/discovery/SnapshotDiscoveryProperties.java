@@ -0,0 +1,41 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务实例快照配置
+ */
+@Data
+@ConfigurationProperties(prefix = "share.discovery")
+public class SnapshotDiscoveryProperties {
+
+    /**
+     * nacos：从快照启动，后台定时从 Nacos 刷新并写回快照；
+     * static：只用 static-instances 和快照文件，不访问注册中心（测试、单机部署）
+     */
+    private String mode = "nacos";
+
+    /**
+     * 快照文件，为空时使用 ./discovery/{spring.application.name}-instances.json
+     */
+    private String snapshotFile;
+
+    /**
+     * 后台从注册中心刷新的间隔
+     */
+    private long refreshIntervalMs = 10000;
+
+    /**
+     * 固定的实例列表，服务名 -> host:port 列表，优先于快照文件
+     */
+    private Map<String, List<String>> staticInstances = new LinkedHashMap<>();
+
+    public boolean isStatic() {
+        return "static".equals(mode);
+    }
+}
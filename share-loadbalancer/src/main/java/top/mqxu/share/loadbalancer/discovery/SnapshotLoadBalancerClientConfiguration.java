@@ -0,0 +1,24 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 每个服务的负载均衡子容器里的实例列表，替换默认的 {@code DiscoveryClientServiceInstanceListSupplier}
+ * 不能加 @Configuration，否则会被主容器扫描到
+ */
+public class SnapshotLoadBalancerClientConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier snapshotServiceInstanceListSupplier(Environment environment,
+                                                                         ConfigurableApplicationContext context,
+                                                                         InstanceSnapshotStore store) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ServiceInstanceListSupplier delegate = store.isStatic() ? null
+                : ServiceInstanceListSupplier.builder().withDiscoveryClient().build(context);
+        return new SnapshotServiceInstanceListSupplier(serviceId, store, delegate);
+    }
+}
@@ -0,0 +1,49 @@
+package top.mqxu.share.loadbalancer.discovery;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 负载均衡使用的实例列表：优先读本地快照，不等注册中心；
+ * 快照里还没有这个服务时才查一次注册中心，结果写入快照
+ */
+public class SnapshotServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private final String serviceId;
+
+    private final InstanceSnapshotStore store;
+
+    /**
+     * 直接查注册中心的实例列表，static 模式下为 null
+     */
+    private final ServiceInstanceListSupplier delegate;
+
+    public SnapshotServiceInstanceListSupplier(String serviceId, InstanceSnapshotStore store,
+                                               ServiceInstanceListSupplier delegate) {
+        this.serviceId = serviceId;
+        this.store = store;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return Flux.defer(() -> {
+            List<ServiceInstance> instances = store.get(serviceId);
+            if (instances != null) {
+                return Flux.just(instances);
+            }
+            if (delegate == null) {
+                return Flux.just(List.of());
+            }
+            return delegate.get().take(1).doOnNext(list -> store.update(serviceId, list));
+        });
+    }
+}
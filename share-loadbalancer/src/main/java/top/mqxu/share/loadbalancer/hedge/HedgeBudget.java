@@ -0,0 +1,36 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+/**
+ * 对冲预算（令牌桶）：每个请求存入 ratio 个令牌，对冲一次花掉一个，
+ * 下游整体变慢时对冲请求最多让流量多出 ratio，不会把下游压垮
+ */
+public class HedgeBudget {
+
+    /**
+     * 0.1 累加 10 次是 0.9999999999999999，比较时留一点余量，否则 ratio=0.1 时要 11 个请求才能对冲一次
+     */
+    private static final double EPSILON = 1e-9;
+
+    private final double ratio;
+
+    private final double max;
+
+    private double tokens;
+
+    public HedgeBudget(double ratio, double max) {
+        this.ratio = ratio;
+        this.max = max;
+    }
+
+    public synchronized void deposit() {
+        tokens = Math.min(max, tokens + ratio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1 - EPSILON) {
+            return false;
+        }
+        tokens = Math.max(0, tokens - 1);
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对冲策略配置，网关和 Feign 各自决定哪些请求可以对冲
+ */
+@Configuration
+@EnableConfigurationProperties(HedgeProperties.class)
+public class HedgeConfig {
+
+    @Bean
+    public HedgePolicyRegistry hedgePolicyRegistry(HedgeProperties properties) {
+        return new HedgePolicyRegistry(properties);
+    }
+}
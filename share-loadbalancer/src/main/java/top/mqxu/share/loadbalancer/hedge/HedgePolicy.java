@@ -0,0 +1,78 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一类请求（一个路由或一个 Feign 方法）的对冲策略：延迟统计、对冲预算和计数
+ */
+public class HedgePolicy {
+
+    private final HedgeProperties properties;
+
+    private final LatencyHistogram histogram;
+
+    private final HedgeBudget budget;
+
+    private final AtomicLong hedged = new AtomicLong();
+
+    private final AtomicLong hedgeWon = new AtomicLong();
+
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public HedgePolicy(HedgeProperties properties) {
+        this.properties = properties;
+        this.histogram = new LatencyHistogram(properties.getWindowMs() * 1_000_000);
+        this.budget = new HedgeBudget(properties.getBudgetRatio(), properties.getBudgetMax());
+    }
+
+    /**
+     * 发出主请求之前调用，给对冲预算存入额度
+     */
+    public void onRequest() {
+        budget.deposit();
+    }
+
+    /**
+     * 主请求发出后等待多久再对冲：最近延迟的 percentile 分位数，限制在 [min-delay, max-delay]
+     */
+    public Duration delay() {
+        long nanos = histogram.percentile(properties.getPercentile(), properties.getMinSamples());
+        long ms = nanos < 0 ? properties.getInitialDelayMs() : nanos / 1_000_000;
+        return Duration.ofMillis(Math.max(properties.getMinDelayMs(), Math.min(properties.getMaxDelayMs(), ms)));
+    }
+
+    /**
+     * 到了对冲时间，尝试从预算里拿一次对冲
+     */
+    public boolean tryHedge() {
+        if (budget.tryAcquire()) {
+            hedged.incrementAndGet();
+            return true;
+        }
+        budgetExhausted.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录一次成功请求的延迟（主请求或对冲请求，以先返回的为准）
+     */
+    public void record(long latencyNanos, boolean hedgeWon) {
+        histogram.record(latencyNanos);
+        if (hedgeWon) {
+            this.hedgeWon.incrementAndGet();
+        }
+    }
+
+    public long getHedged() {
+        return hedged.get();
+    }
+
+    public long getHedgeWon() {
+        return hedgeWon.get();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+}
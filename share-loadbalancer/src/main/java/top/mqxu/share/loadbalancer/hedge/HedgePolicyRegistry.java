@@ -0,0 +1,30 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按名字（路由 id、Feign 方法）保存对冲策略，每个名字单独统计延迟和预算
+ */
+public class HedgePolicyRegistry {
+
+    private final HedgeProperties properties;
+
+    private final ConcurrentHashMap<String, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    public HedgePolicyRegistry(HedgeProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public HedgePolicy get(String name) {
+        return policies.computeIfAbsent(name, k -> new HedgePolicy(properties));
+    }
+
+    public Map<String, HedgePolicy> getPolicies() {
+        return policies;
+    }
+}
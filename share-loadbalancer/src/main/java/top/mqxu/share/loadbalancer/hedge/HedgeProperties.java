@@ -0,0 +1,45 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对冲请求配置：幂等的读请求超过延迟分位数还没返回时，向另一个实例再发一次，用先返回的结果
+ */
+@Data
+@ConfigurationProperties(prefix = "share.hedging")
+public class HedgeProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 对冲延迟取最近延迟的这个分位数
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 样本不足 min-samples 时使用的对冲延迟
+     */
+    private long initialDelayMs = 100;
+
+    private long minDelayMs = 10;
+
+    private long maxDelayMs = 1000;
+
+    private int minSamples = 50;
+
+    /**
+     * 延迟统计的时间窗口，分位数按当前和上一个窗口计算，旧的样本最多保留两个窗口
+     */
+    private long windowMs = 30000;
+
+    /**
+     * 对冲预算：每个请求攒这么多额度，一次对冲花掉 1，即对冲请求最多占正常请求的这个比例
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 额度上限，限制空闲之后的突发对冲
+     */
+    private double budgetMax = 10;
+}
@@ -0,0 +1,91 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图：桶的边界按 1.2 倍递增（0.1ms 到约 60s），误差不超过 20%；
+ * 用当前和上一个两个时间窗口，轮换时丢掉更早的样本，分位数跟得上延迟的变化。
+ * 记录不加锁，轮换时极少数样本可能落进刚清空的窗口，对分位数没有影响
+ */
+public class LatencyHistogram {
+
+    private static final double BASE_NANOS = 100_000;
+
+    private static final double LOG_RATIO = Math.log(1.2);
+
+    private static final int BUCKETS = 72;
+
+    private final long windowNanos;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    private volatile long windowStart = System.nanoTime();
+
+    public LatencyHistogram(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    public void record(long latencyNanos) {
+        rotateIfNeeded();
+        current.incrementAndGet(bucket(latencyNanos));
+    }
+
+    /**
+     * @param percentile 分位数，如 0.95
+     * @param minSamples 样本数不足时返回 -1
+     * @return 分位数所在桶的上界（纳秒）
+     */
+    public long percentile(double percentile, int minSamples) {
+        rotateIfNeeded();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = cur.get(i) + prev.get(i);
+            total += counts[i];
+        }
+        if (total < minSamples || total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private void rotateIfNeeded() {
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStart < windowNanos) {
+                return;
+            }
+            // 空闲超过两个窗口时上一个窗口也已过期
+            previous = now - windowStart < 2 * windowNanos ? current : new AtomicLongArray(BUCKETS);
+            current = new AtomicLongArray(BUCKETS);
+            windowStart = now;
+        }
+    }
+
+    private static int bucket(long latencyNanos) {
+        if (latencyNanos <= BASE_NANOS) {
+            return 0;
+        }
+        int index = (int) Math.ceil(Math.log(latencyNanos / BASE_NANOS) / LOG_RATIO);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) (BASE_NANOS * Math.pow(1.2, bucket));
+    }
+}
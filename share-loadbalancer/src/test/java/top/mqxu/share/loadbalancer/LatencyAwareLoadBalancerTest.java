@@ -0,0 +1,114 @@
+package top.mqxu.share.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用三个桩实例模拟延迟：一个 200ms 的慢实例，两个 5ms 的正常实例
+ */
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "user-service";
+
+    private final InstanceStatsRegistry registry = new InstanceStatsRegistry();
+
+    private final LatencyStatsLifecycle lifecycle =
+            new LatencyStatsLifecycle(registry, TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(2));
+
+    private final ServiceInstance slow = instance("slow", 9001);
+
+    private final ServiceInstance fastA = instance("fast-a", 9002);
+
+    private final ServiceInstance fastB = instance("fast-b", 9003);
+
+    private final LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer(
+            new StaticListableBeanFactory(Map.of("supplier", ServiceInstanceListSuppliers.from(SERVICE_ID, slow, fastA, fastB)))
+                    .getBeanProvider(ServiceInstanceListSupplier.class),
+            SERVICE_ID, registry);
+
+    @Test
+    void slowInstanceIsAvoidedAfterSamples() {
+        for (int i = 0; i < 5; i++) {
+            call(slow, 200);
+            call(fastA, 5);
+            call(fastB, 5);
+        }
+
+        Map<String, Integer> picks = pick(300);
+        assertEquals(0, picks.getOrDefault("slow", 0));
+        assertTrue(picks.getOrDefault("fast-a", 0) > 0);
+        assertTrue(picks.getOrDefault("fast-b", 0) > 0);
+    }
+
+    @Test
+    void backlogMovesTrafficAway() {
+        for (int i = 0; i < 5; i++) {
+            call(slow, 5);
+            call(fastA, 5);
+            call(fastB, 5);
+        }
+        // 慢实例卡住，积压了一批没返回的请求
+        for (int i = 0; i < 10; i++) {
+            lifecycle.onStartRequest(new DefaultRequest<>(new DefaultRequestContext()), new DefaultResponse(slow));
+        }
+
+        assertEquals(0, pick(300).getOrDefault("slow", 0));
+    }
+
+    @Test
+    void cancelledRequestsDoNotStarveInstance() {
+        // 这里的 slow 实例其实最快，被取消的请求如果没减进行中数，它就一直分不到流量
+        for (int i = 0; i < 5; i++) {
+            call(slow, 1);
+            call(fastA, 5);
+            call(fastB, 5);
+        }
+        Response<ServiceInstance> response = new DefaultResponse(slow);
+        for (int i = 0; i < 10; i++) {
+            lifecycle.onStartRequest(new DefaultRequest<>(new DefaultRequestContext()), response);
+            lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, new DefaultRequest<>(), response));
+        }
+
+        assertEquals(0, registry.get(slow).getInFlight());
+        assertTrue(pick(300).getOrDefault("slow", 0) > 0);
+    }
+
+    private void call(ServiceInstance instance, long latencyMs) {
+        DefaultRequestContext context = new DefaultRequestContext();
+        Request<Object> request = new DefaultRequest<>(context);
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        lifecycle.onStartRequest(request, response);
+        context.setRequestStartTime(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+    }
+
+    private Map<String, Integer> pick(int times) {
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            ServiceInstance chosen = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+            picks.merge(chosen.getInstanceId(), 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, SERVICE_ID, "127.0.0.1", port, false);
+    }
+}
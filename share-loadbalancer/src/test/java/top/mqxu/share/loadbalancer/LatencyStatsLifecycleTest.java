@@ -0,0 +1,68 @@
+package top.mqxu.share.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyStatsLifecycleTest {
+
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final long PENALTY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final InstanceStatsRegistry registry = new InstanceStatsRegistry();
+
+    private final LatencyStatsLifecycle lifecycle = new LatencyStatsLifecycle(registry, DECAY_NANOS, PENALTY_NANOS);
+
+    private final ServiceInstance instance = new DefaultServiceInstance("a", "user-service", "127.0.0.1", 9001, false);
+
+    @Test
+    void successRecordsLatencyAndReleasesInFlight() {
+        Request<Object> request = new DefaultRequest<>(new DefaultRequestContext());
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+
+        lifecycle.onStartRequest(request, response);
+        assertEquals(1, registry.get(instance).getInFlight());
+
+        ((DefaultRequestContext) request.getContext()).setRequestStartTime(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50));
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+
+        assertEquals(0, registry.get(instance).getInFlight());
+        assertTrue(registry.get(instance).getEwmaNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void failureIsRecordedAtLeastAsPenalty() {
+        Request<Object> request = new DefaultRequest<>(new DefaultRequestContext());
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+
+        lifecycle.onStartRequest(request, response);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, new RuntimeException(), request, response));
+
+        assertEquals(0, registry.get(instance).getInFlight());
+        assertTrue(registry.get(instance).getEwmaNanos() >= PENALTY_NANOS);
+    }
+
+    @Test
+    void cancelReleasesInFlightWithoutSample() {
+        Request<Object> request = new DefaultRequest<>(new DefaultRequestContext());
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+
+        lifecycle.onStartRequest(request, response);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, new DefaultRequest<>(), response));
+
+        assertEquals(0, registry.get(instance).getInFlight());
+        assertEquals(0, registry.get(instance).getEwmaNanos());
+    }
+}
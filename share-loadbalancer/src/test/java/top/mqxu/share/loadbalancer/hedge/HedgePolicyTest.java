@@ -0,0 +1,63 @@
+package top.mqxu.share.loadbalancer.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgePolicyTest {
+
+    @Test
+    void delayFollowsPercentile() {
+        HedgeProperties properties = properties(0.1, 10);
+        HedgePolicy policy = new HedgePolicy(properties);
+        // 样本不足时用 initial-delay-ms
+        assertEquals(Duration.ofMillis(properties.getInitialDelayMs()), policy.delay());
+
+        for (int i = 0; i < 95; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(20), false);
+        }
+        for (int i = 0; i < 5; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(900), false);
+        }
+        // p95 落在 20ms 所在的桶，桶宽 20%
+        long delay = policy.delay().toMillis();
+        assertTrue(delay >= 20 && delay <= 24, String.valueOf(delay));
+    }
+
+    @Test
+    void budgetCapsHedges() {
+        HedgePolicy policy = new HedgePolicy(properties(0.1, 2));
+        // 空闲很久攒下的额度也只有 budget-max
+        for (int i = 0; i < 100; i++) {
+            policy.onRequest();
+        }
+        assertTrue(policy.tryHedge());
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+
+        // 之后每 10 个请求才能对冲一次
+        for (int i = 0; i < 9; i++) {
+            policy.onRequest();
+            assertFalse(policy.tryHedge());
+        }
+        policy.onRequest();
+        assertTrue(policy.tryHedge());
+        assertEquals(3, policy.getHedged());
+        assertEquals(10, policy.getBudgetExhausted());
+    }
+
+    private static HedgeProperties properties(double budgetRatio, double budgetMax) {
+        HedgeProperties properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setMinSamples(50);
+        properties.setMinDelayMs(1);
+        properties.setBudgetRatio(budgetRatio);
+        properties.setBudgetMax(budgetMax);
+        return properties;
+    }
+}
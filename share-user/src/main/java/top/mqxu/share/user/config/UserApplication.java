@@ -6,11 +6,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan("top.mqxu")
 @MapperScan("top.mqxu.share.*.mapper")
 @Slf4j
+@EnableScheduling
 public class UserApplication {
     public static void main(String[] args) {
         SpringApplication app = new SpringApplication(UserApplication.class);
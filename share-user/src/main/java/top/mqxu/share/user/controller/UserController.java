@@ -2,14 +2,26 @@ package top.mqxu.share.user.controller;
 
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import top.mqxu.share.common.resp.CommonResp;
+import top.mqxu.share.common.resp.CursorPageResp;
 import top.mqxu.share.user.domain.dto.LoginDTO;
 import top.mqxu.share.user.domain.dto.UserAddBonusMsgDTO;
+import top.mqxu.share.user.domain.entity.BonusDailyRollup;
+import top.mqxu.share.user.domain.entity.BonusEventLog;
 import top.mqxu.share.user.domain.entity.User;
+import top.mqxu.share.user.domain.resp.BonusReconcileResp;
 import top.mqxu.share.user.domain.resp.UserLoginResp;
+import top.mqxu.share.user.service.BonusRollupService;
 import top.mqxu.share.user.service.UserService;
 
+import java.util.Date;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/user")
@@ -17,6 +29,14 @@ public class UserController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private BonusRollupService bonusRollupService;
+
+    /**
+     * 积分流水每页最多的条数
+     */
+    private static final int MAX = 100;
+
     @GetMapping("/count")
     public Long count() {
         return userService.count();
@@ -46,6 +66,17 @@ public class UserController {
         return resp;
     }
 
+    /**
+     * 从主库查询用户，供 content-service 兑换前检查积分
+     */
+    @GetMapping("/{id}/primary")
+    public CommonResp<User> getUserByIdOnPrimary(@PathVariable Long id) {
+        User user = userService.findByIdOnPrimary(id);
+        CommonResp<User> resp = new CommonResp<>();
+        resp.setData(user);
+        return resp;
+    }
+
     @PostMapping("/updateBonus")
     public CommonResp<User> updateBonus(@RequestBody UserAddBonusMsgDTO userAddBonusMsgDTO) {
         Long userId = userAddBonusMsgDTO.getUserId();
@@ -65,4 +96,64 @@ public class UserController {
         return resp;
     }
 
+    /**
+     * 游标分页查询积分流水
+     */
+    @GetMapping("/{id}/bonus-log")
+    public CommonResp<CursorPageResp<BonusEventLog>> getBonusLog(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer pageSize,
+            @RequestHeader(value = "token", required = false) String token) {
+        userService.requireSelfOrAdmin(id, token);
+        // 控制 pageSize 在 [1, MAX] 之间
+        pageSize = Math.max(1, Math.min(pageSize, MAX));
+        CommonResp<CursorPageResp<BonusEventLog>> resp = new CommonResp<>();
+        resp.setData(userService.getBonusLog(id, cursor, pageSize));
+        return resp;
+    }
+
+    /**
+     * 以 NDJSON 流式导出全部积分流水
+     */
+    @GetMapping("/{id}/bonus-log/export")
+    public ResponseEntity<StreamingResponseBody> exportBonusLog(
+            @PathVariable Long id,
+            @RequestHeader(value = "token", required = false) String token) {
+        userService.requireSelfOrAdmin(id, token);
+        StreamingResponseBody body = out -> userService.exportBonusLog(id, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=bonus-log-" + id + ".ndjson")
+                .body(body);
+    }
+
+    /**
+     * 每天的积分收支（按事件）
+     */
+    @GetMapping("/{id}/bonus-daily")
+    public CommonResp<List<BonusDailyRollup>> getBonusDaily(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to,
+            @RequestHeader(value = "token", required = false) String token) {
+        userService.requireSelfOrAdmin(id, token);
+        CommonResp<List<BonusDailyRollup>> resp = new CommonResp<>();
+        resp.setData(bonusRollupService.getDaily(id, from, to));
+        return resp;
+    }
+
+    /**
+     * 积分对账，返回汇总表合计和账户积分对不上的用户，只有管理员能调用
+     */
+    @GetMapping("/bonus-reconcile")
+    public CommonResp<CursorPageResp<BonusReconcileResp>> reconcile(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false, defaultValue = "1000") Integer limit,
+            @RequestHeader(value = "token", required = false) String token) {
+        userService.requireAdmin(token);
+        CommonResp<CursorPageResp<BonusReconcileResp>> resp = new CommonResp<>();
+        resp.setData(bonusRollupService.reconcile(cursor, limit));
+        return resp;
+    }
 }
@@ -0,0 +1,35 @@
+package top.mqxu.share.user.domain.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BonusDailyRollup {
+    private Long userId;
+    @JsonFormat(locale = "zh", timezone = "GMT+8", pattern = "yyyy-MM-dd")
+    private Date day;
+    private String event;
+
+    /**
+     * 当天获得的积分
+     */
+    private Long earned;
+
+    /**
+     * 当天花掉的积分（正数）
+     */
+    private Long spent;
+
+    /**
+     * 流水条数
+     */
+    private Long eventCount;
+}
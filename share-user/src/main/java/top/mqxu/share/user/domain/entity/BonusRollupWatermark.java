@@ -0,0 +1,18 @@
+package top.mqxu.share.user.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BonusRollupWatermark {
+    @TableId(type = IdType.INPUT)
+    private String name;
+    private Long lastLogId;
+}
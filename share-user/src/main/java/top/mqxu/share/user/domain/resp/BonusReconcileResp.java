@@ -0,0 +1,29 @@
+package top.mqxu.share.user.domain.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BonusReconcileResp {
+    private Long userId;
+
+    /**
+     * user 表里的积分
+     */
+    private Long balance;
+
+    /**
+     * 汇总表里的积分变动合计
+     */
+    private Long rollupTotal;
+
+    /**
+     * balance - 注册赠送积分 - rollupTotal，不为 0 说明对不上
+     */
+    private Long diff;
+}
@@ -0,0 +1,34 @@
+package top.mqxu.share.user.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import top.mqxu.share.user.domain.entity.BonusDailyRollup;
+import top.mqxu.share.user.domain.resp.BonusReconcileResp;
+
+import java.util.List;
+
+public interface BonusDailyRollupMapper extends BaseMapper<BonusDailyRollup> {
+
+    /**
+     * 批量累加汇总数据，不存在则插入
+     */
+    @Insert("<script>" +
+            "INSERT INTO bonus_daily_rollup (user_id, day, event, earned, spent, event_count) VALUES " +
+            "<foreach collection='rollups' item='r' separator=','>" +
+            "(#{r.userId}, #{r.day}, #{r.event}, #{r.earned}, #{r.spent}, #{r.eventCount})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE earned = earned + VALUES(earned), spent = spent + VALUES(spent), " +
+            "event_count = event_count + VALUES(event_count)" +
+            "</script>")
+    int upsertAdd(@Param("rollups") List<BonusDailyRollup> rollups);
+
+    /**
+     * 按用户 id 分页，把汇总表的积分合计和 user 表的积分放在一起，只扫描汇总表，不扫描流水表
+     */
+    @Select("SELECT u.id AS user_id, u.bonus AS balance, COALESCE(SUM(r.earned - r.spent), 0) AS rollup_total " +
+            "FROM user u LEFT JOIN bonus_daily_rollup r ON r.user_id = u.id " +
+            "WHERE u.id > #{cursor} GROUP BY u.id, u.bonus ORDER BY u.id LIMIT #{limit}")
+    List<BonusReconcileResp> selectBalanceWithRollup(@Param("cursor") Long cursor, @Param("limit") Integer limit);
+}
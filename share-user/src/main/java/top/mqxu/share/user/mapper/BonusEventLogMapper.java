@@ -1,7 +1,25 @@
 package top.mqxu.share.user.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import top.mqxu.share.user.domain.entity.BonusEventLog;
 
 public interface BonusEventLogMapper extends BaseMapper<BonusEventLog> {
+
+    /**
+     * 按 id 升序流式读取用户的积分流水，需要在事务内遍历
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行流式读取，只对这条语句生效，
+     * 不需要在连接串上开 useCursorFetch（那样所有查询都会变成服务端游标）
+     *
+     * @param userId 用户 id
+     * @return 游标
+     */
+    @Select("SELECT id, user_id, value, description, event, create_time FROM bonus_event_log " +
+            "WHERE user_id = #{userId} ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<BonusEventLog> streamByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,22 @@
+package top.mqxu.share.user.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import top.mqxu.share.user.domain.entity.BonusRollupWatermark;
+
+public interface BonusRollupWatermarkMapper extends BaseMapper<BonusRollupWatermark> {
+
+    /**
+     * 读取水位线并加行锁，多个实例的汇总线程在这里排队，同一批流水只会被汇总一次
+     */
+    @Select("SELECT name, last_log_id FROM bonus_rollup_watermark WHERE name = #{name} FOR UPDATE")
+    BonusRollupWatermark selectForUpdate(@Param("name") String name);
+
+    /**
+     * 水位线不存在时创建，多个实例同时创建也不会报主键冲突
+     */
+    @Insert("INSERT IGNORE INTO bonus_rollup_watermark (name, last_log_id) VALUES (#{name}, 0)")
+    int insertIgnore(@Param("name") String name);
+}
@@ -0,0 +1,230 @@
+package top.mqxu.share.user.service;
+
+import cn.hutool.core.date.DateUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.mqxu.share.common.resp.CursorPageResp;
+import top.mqxu.share.user.domain.entity.BonusDailyRollup;
+import top.mqxu.share.user.domain.entity.BonusEventLog;
+import top.mqxu.share.user.domain.entity.BonusRollupWatermark;
+import top.mqxu.share.user.domain.resp.BonusReconcileResp;
+import top.mqxu.share.user.mapper.BonusDailyRollupMapper;
+import top.mqxu.share.user.mapper.BonusEventLogMapper;
+import top.mqxu.share.user.mapper.BonusRollupWatermarkMapper;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 积分按天汇总：把 bonus_event_log 增量汇总到 bonus_daily_rollup（用户 + 天 + 事件）
+ * 每个实例由一个后台线程从水位线（已汇总的最大流水 id）往后处理，写流水后触发一次，定时任务兜底；
+ * 多个实例之间靠水位线的行锁串行
+ */
+@Slf4j
+@Service
+public class BonusRollupService {
+
+    private static final String WATERMARK_NAME = "bonus_daily_rollup";
+
+    /**
+     * 对账每页最多检查的用户数
+     */
+    private static final int MAX_RECONCILE_LIMIT = 5000;
+
+    @Resource
+    private BonusEventLogMapper bonusEventLogMapper;
+
+    @Resource
+    private BonusDailyRollupMapper bonusDailyRollupMapper;
+
+    @Resource
+    private BonusRollupWatermarkMapper bonusRollupWatermarkMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 每批处理的流水条数
+     */
+    @Value("${share.bonus-rollup.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 按 id 顺序处理到第一条创建时间不早于 now - lag 的流水为止，给还没提交的事务留出时间，避免小 id 晚提交被水位线跳过
+     */
+    @Value("${share.bonus-rollup.lag-ms:3000}")
+    private long lagMs;
+
+    /**
+     * 注册时赠送的积分，不在流水里，对账时要扣掉
+     */
+    @Value("${share.bonus-rollup.initial-bonus:100}")
+    private long initialBonus;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "bonus-rollup"));
+
+    /**
+     * 已经提交、还没开始执行的汇总任务，多次触发合并成一次
+     */
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    /**
+     * 触发一次增量汇总，立即返回，等过了 lag 之后刚写的流水才会被处理
+     */
+    public void trigger() {
+        if (queued.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                queued.set(false);
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    log.error("积分汇总失败", e);
+                }
+            }, lagMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${share.bonus-rollup.interval-ms:10000}")
+    public void scheduledCatchUp() {
+        trigger();
+    }
+
+    /**
+     * 从水位线往后一批一批地汇总，直到追上
+     */
+    private void catchUp() {
+        int processed;
+        do {
+            Integer count = transactionTemplate.execute(status -> processBatch());
+            processed = count == null ? 0 : count;
+        } while (processed >= batchSize);
+    }
+
+    /**
+     * 在一个事务里处理一批流水：累加汇总表并推进水位线
+     * 每个实例都有自己的汇总线程，水位线行加锁到事务结束，其它实例等锁释放后读到推进后的水位线
+     *
+     * @return 本批处理的流水条数
+     */
+    private int processBatch() {
+        BonusRollupWatermark watermark = bonusRollupWatermarkMapper.selectForUpdate(WATERMARK_NAME);
+        if (watermark == null) {
+            bonusRollupWatermarkMapper.insertIgnore(WATERMARK_NAME);
+            watermark = bonusRollupWatermarkMapper.selectForUpdate(WATERMARK_NAME);
+        }
+
+        LambdaQueryWrapper<BonusEventLog> wrapper = new LambdaQueryWrapper<>();
+        wrapper.gt(BonusEventLog::getId, watermark.getLastLogId())
+                .orderByAsc(BonusEventLog::getId);
+        List<BonusEventLog> logs = readyPrefix(bonusEventLogMapper.selectList(Page.of(1, batchSize, false), wrapper));
+        if (logs.isEmpty()) {
+            return 0;
+        }
+
+        // 先在内存里按 用户 + 天 + 事件 合并，再一条 SQL 写入
+        Map<String, BonusDailyRollup> rollups = new LinkedHashMap<>();
+        for (BonusEventLog bonusEventLog : logs) {
+            Date day = DateUtil.beginOfDay(bonusEventLog.getCreateTime());
+            String event = bonusEventLog.getEvent() == null ? "UNKNOWN" : bonusEventLog.getEvent();
+            BonusDailyRollup rollup = rollups.computeIfAbsent(
+                    bonusEventLog.getUserId() + "_" + day.getTime() + "_" + event,
+                    k -> BonusDailyRollup.builder()
+                            .userId(bonusEventLog.getUserId())
+                            .day(day)
+                            .event(event)
+                            .earned(0L)
+                            .spent(0L)
+                            .eventCount(0L)
+                            .build());
+            int value = bonusEventLog.getValue();
+            if (value >= 0) {
+                rollup.setEarned(rollup.getEarned() + value);
+            } else {
+                rollup.setSpent(rollup.getSpent() - value);
+            }
+            rollup.setEventCount(rollup.getEventCount() + 1);
+        }
+        bonusDailyRollupMapper.upsertAdd(new ArrayList<>(rollups.values()));
+
+        watermark.setLastLogId(logs.get(logs.size() - 1).getId());
+        bonusRollupWatermarkMapper.updateById(watermark);
+        log.info("积分汇总完成 {} 条流水，水位线：{}", logs.size(), watermark.getLastLogId());
+        return logs.size();
+    }
+
+    /**
+     * 按 id 顺序取到第一条还在 lag 之内的流水之前。不能按创建时间逐条过滤：
+     * createTime 由应用写入，id 大的流水创建时间可能更早（其它线程、其它实例、时钟偏差），
+     * 水位线推进到它之后，还在 lag 之内的小 id 就再也不会被汇总
+     */
+    private List<BonusEventLog> readyPrefix(List<BonusEventLog> logs) {
+        Date cutoff = new Date(System.currentTimeMillis() - lagMs);
+        for (int i = 0; i < logs.size(); i++) {
+            if (!logs.get(i).getCreateTime().before(cutoff)) {
+                return logs.subList(0, i);
+            }
+        }
+        return logs;
+    }
+
+    /**
+     * 查询用户每天的积分收支
+     *
+     * @param userId 用户 id
+     * @param from   开始日期（含）
+     * @param to     结束日期（含）
+     * @return 按日期降序的汇总数据
+     */
+    public List<BonusDailyRollup> getDaily(Long userId, Date from, Date to) {
+        LambdaQueryWrapper<BonusDailyRollup> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(BonusDailyRollup::getUserId, userId)
+                .ge(from != null, BonusDailyRollup::getDay, from)
+                .le(to != null, BonusDailyRollup::getDay, to)
+                .orderByDesc(BonusDailyRollup::getDay);
+        return bonusDailyRollupMapper.selectList(wrapper);
+    }
+
+    /**
+     * 对账：按用户 id 分页比较汇总表合计和 user 表积分，只返回对不上的用户
+     * 水位线之后还没汇总的流水会表现为差额，对账前可以先等汇总追上
+     *
+     * @param cursor 上一页最后一个用户 id，第一页传 null
+     * @param limit  每页检查的用户数，限制在 [1, MAX_RECONCILE_LIMIT] 之间
+     * @return 对不上的用户
+     */
+    public CursorPageResp<BonusReconcileResp> reconcile(Long cursor, Integer limit) {
+        limit = Math.max(1, Math.min(limit, MAX_RECONCILE_LIMIT));
+        List<BonusReconcileResp> rows = bonusDailyRollupMapper.selectBalanceWithRollup(cursor == null ? 0L : cursor, limit);
+        List<BonusReconcileResp> mismatched = new ArrayList<>();
+        for (BonusReconcileResp row : rows) {
+            row.setDiff(row.getBalance() - initialBonus - row.getRollupTotal());
+            if (row.getDiff() != 0) {
+                mismatched.add(row);
+            }
+        }
+        Long nextCursor = rows.size() < limit ? null : rows.get(rows.size() - 1).getUserId();
+        return CursorPageResp.<BonusReconcileResp>builder()
+                .list(mismatched)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
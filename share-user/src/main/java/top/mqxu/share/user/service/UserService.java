@@ -1,22 +1,36 @@
 package top.mqxu.share.user.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.transaction.annotation.Transactional;
+import top.mqxu.share.common.resp.CursorPageResp;
 import top.mqxu.share.user.domain.dto.UserAddBonusMsgDTO;
 import top.mqxu.share.user.domain.entity.BonusEventLog;
 import top.mqxu.share.user.mapper.BonusEventLogMapper;
 import top.mqxu.share.util.JwtUtil;
+import top.mqxu.share.util.RoleUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
+import top.mqxu.share.common.auth.AdminGuard;
+import top.mqxu.share.common.datasource.ReadOnly;
 import top.mqxu.share.common.exception.BusinessException;
 import top.mqxu.share.common.exception.BusinessExceptionEnum;
+import top.mqxu.share.common.invalidation.EntityTypes;
+import top.mqxu.share.common.invalidation.InvalidationBus;
 import top.mqxu.share.user.domain.dto.LoginDTO;
 import top.mqxu.share.user.domain.entity.User;
 import top.mqxu.share.user.domain.resp.UserLoginResp;
 import top.mqxu.share.user.mapper.UserMapper;
 import top.mqxu.share.util.SnowUtil;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
+import java.util.List;
 
 /**
  * UserService 处理用户业务逻辑
@@ -24,7 +38,7 @@ import java.util.Date;
  */
 @Slf4j
 @Service
-public class UserService {
+public class UserService implements AdminGuard {
 
     @Resource
     private UserMapper userMapper;
@@ -32,10 +46,20 @@ public class UserService {
     @Resource
     private BonusEventLogMapper bonusEventLogMapper;
 
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private BonusRollupService bonusRollupService;
+
+    @Resource
+    private InvalidationBus invalidationBus;
+
     /**
      * 统计用户数量
      * @return 用户数量
      */
+    @ReadOnly
     public Long count() {
         return userMapper.selectCount(null);
     }
@@ -46,27 +70,73 @@ public class UserService {
      * @param userId 用户ID
      * @return 用户信息
      */
+    @ReadOnly
     public User findById(Long userId) {
         return userMapper.selectById(userId);
     }
 
+    /**
+     * 从主库查询用户，兑换前检查积分用：Feign 调用不带 token，read-your-writes 不生效，
+     * 从库延迟时可能读到已经花掉的积分
+     * @param userId 用户ID
+     * @return 用户信息
+     */
+    public User findByIdOnPrimary(Long userId) {
+        return userMapper.selectById(userId);
+    }
+
+    /**
+     * 积分流水只能本人或管理员查看
+     *
+     * @param userId 要查看的用户 id
+     * @param token  调用者的 token
+     */
+    @ReadOnly
+    public void requireSelfOrAdmin(Long userId, String token) {
+        Long callerId = JwtUtil.getUserId(token);
+        if (callerId != null && callerId.equals(userId)) {
+            return;
+        }
+        requireAdmin(callerId);
+    }
+
+    /**
+     * 对账等管理接口只能管理员调用
+     *
+     * @param token 调用者的 token
+     */
+    @Override
+    @ReadOnly
+    public void requireAdmin(String token) {
+        requireAdmin(JwtUtil.getUserId(token));
+    }
+
+    private void requireAdmin(Long callerId) {
+        User caller = callerId == null ? null : userMapper.selectById(callerId);
+        if (caller == null || !RoleUtil.isAdmin(caller.getRoles())) {
+            log.warn("非管理员调用受限接口被拒绝，callerId：{}", callerId);
+            throw BusinessException.of(BusinessExceptionEnum.NO_PERMISSION);
+        }
+    }
+
     /**
      * 用户登录方法
      * @param loginDTO 包含登录信息的DTO
      * @return 登录成功的用户信息
      */
+    @ReadOnly
     public UserLoginResp login(LoginDTO loginDTO) {
         // 根据手机号查询用户
         User user = userMapper.selectOne(new QueryWrapper<User>().lambda().eq(User::getPhone, loginDTO.getPhone()));
 
         // 用户不存在，抛出异常
         if (user == null) {
-            throw new BusinessException(BusinessExceptionEnum.PHONE_NOT_EXIST);
+            throw BusinessException.of(BusinessExceptionEnum.PHONE_NOT_EXIST);
         }
 
         // 密码错误，抛出异常
         if (!user.getPassword().equals(loginDTO.getPassword())) {
-            throw new BusinessException(BusinessExceptionEnum.PASSWORD_ERROR);
+            throw BusinessException.of(BusinessExceptionEnum.PASSWORD_ERROR);
         }
 
         //都正确，返回
@@ -92,7 +162,7 @@ public class UserService {
 
         // 如果手机号已存在，抛出业务异常
         if (userDb != null) {
-            throw new BusinessException(BusinessExceptionEnum.PHONE_EXIST);
+            throw BusinessException.of(BusinessExceptionEnum.PHONE_EXIST);
         }
 
         // 创建并构建新用户对象
@@ -132,7 +202,58 @@ public class UserService {
                 .createTime(new Date())
                 .build());
 
+        // 3. 触发积分按天汇总，异步执行
+        bonusRollupService.trigger();
+
+        // 4. 通知其它实例淘汰这个用户的本地缓存
+        invalidationBus.publish(EntityTypes.USER, userId);
+
         log.info("积分添加完毕……");
     }
-}
 
+    /**
+     * 游标分页查询用户的积分流水，按 id 降序（最新的在前）
+     *
+     * @param userId   用户 id
+     * @param cursor   上一页最后一条的 id，第一页传 null
+     * @param pageSize 每页条数
+     * @return 一页积分流水
+     */
+    @ReadOnly
+    public CursorPageResp<BonusEventLog> getBonusLog(Long userId, Long cursor, Integer pageSize) {
+        LambdaQueryWrapper<BonusEventLog> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(BonusEventLog::getUserId, userId)
+                .lt(cursor != null, BonusEventLog::getId, cursor)
+                .orderByDesc(BonusEventLog::getId);
+        List<BonusEventLog> logs = bonusEventLogMapper.selectList(Page.of(1, pageSize, false), wrapper);
+        Long nextCursor = logs.size() < pageSize ? null : logs.get(logs.size() - 1).getId();
+        return CursorPageResp.<BonusEventLog>builder()
+                .list(logs)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * 把用户的全部积分流水以 NDJSON（一行一个 JSON）写到输出流
+     * 通过 MyBatis Cursor 逐行读取、逐行写出，内存占用和流水条数无关
+     *
+     * @param userId 用户 id
+     * @param out    输出流
+     */
+    @Transactional(readOnly = true)
+    public void exportBonusLog(Long userId, OutputStream out) throws IOException {
+        int count = 0;
+        try (Cursor<BonusEventLog> cursor = bonusEventLogMapper.streamByUserId(userId)) {
+            for (BonusEventLog bonusEventLog : cursor) {
+                out.write(objectMapper.writeValueAsBytes(bonusEventLog));
+                out.write('\n');
+                // 每 500 行刷一次
+                if (++count % 500 == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.info("积分流水导出完毕，userId：{}，共 {} 条", userId, count);
+    }
+}
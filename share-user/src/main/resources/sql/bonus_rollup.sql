@@ -0,0 +1,18 @@
+-- 积分按天汇总：每个用户、每天、每种积分事件一行
+CREATE TABLE IF NOT EXISTS bonus_daily_rollup
+(
+    user_id     BIGINT      NOT NULL COMMENT '用户 id',
+    day         DATE        NOT NULL COMMENT '日期',
+    event       VARCHAR(20) NOT NULL COMMENT '积分事件：BUY 等',
+    earned      BIGINT      NOT NULL DEFAULT 0 COMMENT '当天获得的积分',
+    spent       BIGINT      NOT NULL DEFAULT 0 COMMENT '当天花掉的积分（正数）',
+    event_count BIGINT      NOT NULL DEFAULT 0 COMMENT '流水条数',
+    PRIMARY KEY (user_id, day, event)
+) COMMENT '积分按天汇总';
+
+-- 汇总任务的进度：已经汇总到的 bonus_event_log 最大 id
+CREATE TABLE IF NOT EXISTS bonus_rollup_watermark
+(
+    name        VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '任务名',
+    last_log_id BIGINT      NOT NULL DEFAULT 0 COMMENT '已汇总的最大流水 id'
+) COMMENT '积分汇总进度';
@@ -0,0 +1,89 @@
+package top.mqxu.share.user.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.mqxu.share.user.domain.entity.BonusDailyRollup;
+import top.mqxu.share.user.domain.entity.BonusEventLog;
+import top.mqxu.share.user.domain.entity.BonusRollupWatermark;
+import top.mqxu.share.user.mapper.BonusDailyRollupMapper;
+import top.mqxu.share.user.mapper.BonusEventLogMapper;
+import top.mqxu.share.user.mapper.BonusRollupWatermarkMapper;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 水位线只推进到第一条还在 lag 之内的流水之前
+ */
+class BonusRollupServiceTest {
+
+    private static final long LAG_MS = 3000;
+
+    private final BonusEventLogMapper eventLogMapper = mock(BonusEventLogMapper.class);
+
+    private final BonusDailyRollupMapper rollupMapper = mock(BonusDailyRollupMapper.class);
+
+    private final BonusRollupWatermarkMapper watermarkMapper = mock(BonusRollupWatermarkMapper.class);
+
+    private final BonusRollupWatermark watermark = BonusRollupWatermark.builder().name("bonus_daily_rollup").lastLogId(10L).build();
+
+    private final BonusRollupService service = new BonusRollupService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "bonusEventLogMapper", eventLogMapper);
+        ReflectionTestUtils.setField(service, "bonusDailyRollupMapper", rollupMapper);
+        ReflectionTestUtils.setField(service, "bonusRollupWatermarkMapper", watermarkMapper);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "lagMs", LAG_MS);
+        when(watermarkMapper.selectForUpdate(any())).thenReturn(watermark);
+    }
+
+    @Test
+    void stopsAtFirstRowInsideTheLag() {
+        long now = System.currentTimeMillis();
+        // 12 还在 lag 之内；13 的创建时间更早（另一个实例写入、时钟偏差），不能越过 12 先处理
+        when(eventLogMapper.selectList(any(IPage.class), any(Wrapper.class))).thenReturn(List.of(
+                log(11L, now - 10_000),
+                log(12L, now - 100),
+                log(13L, now - 20_000)));
+
+        int processed = ReflectionTestUtils.invokeMethod(service, "processBatch");
+
+        assertEquals(1, processed);
+        assertEquals(11L, watermark.getLastLogId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BonusDailyRollup>> rollups = ArgumentCaptor.forClass(List.class);
+        verify(rollupMapper).upsertAdd(rollups.capture());
+        assertEquals(1L, rollups.getValue().get(0).getEventCount());
+    }
+
+    @Test
+    void firstRowInsideTheLagKeepsTheWatermark() {
+        when(eventLogMapper.selectList(any(IPage.class), any(Wrapper.class))).thenReturn(List.of(
+                log(11L, System.currentTimeMillis()),
+                log(12L, System.currentTimeMillis() - 20_000)));
+
+        int processed = ReflectionTestUtils.invokeMethod(service, "processBatch");
+
+        assertEquals(0, processed);
+        assertEquals(10L, watermark.getLastLogId());
+        verify(rollupMapper, never()).upsertAdd(any());
+        verify(watermarkMapper, never()).updateById(any(BonusRollupWatermark.class));
+    }
+
+    private static BonusEventLog log(Long id, long createTime) {
+        return BonusEventLog.builder().id(id).userId(1L).value(5).event("SIGN_IN").createTime(new Date(createTime)).build();
+    }
+}